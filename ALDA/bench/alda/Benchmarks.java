@@ -0,0 +1,31 @@
+package alda;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of every data structure with the GC profiler
+ * attached, so each result is reported together with its allocation
+ * rate (gc.alloc.rate.norm is bytes allocated per operation).
+ *
+ * Compile src and bench together with jmh-core and
+ * jmh-generator-annprocess on the class path, and run from the ALDA
+ * directory so WordSearchPuzzle finds its word list and grid:
+ * <pre>
+ * java -cp &lt;classes&gt;:&lt;jmh jars&gt; alda.Benchmarks [regexp]
+ * </pre>
+ */
+public class Benchmarks {
+
+	public static void main(String args[]) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "alda\\..*Benchmark")
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+
+}
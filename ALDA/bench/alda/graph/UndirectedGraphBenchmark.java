@@ -0,0 +1,124 @@
+package alda.graph;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Searches and spanning trees on a random connected graph: a path
+ * through every node, so the graph is connected, plus random edges
+ * until the average degree is about six. The searches go from the
+ * first node to the last.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UndirectedGraphBenchmark {
+
+	private static final int EXTRA_EDGES_PER_NODE = 2;
+	private static final int MAXIMUM_COST = 100;
+
+	@Param({ "100", "1000" })
+	private int size;
+
+	private MyUndirectedGraph<Integer> graph;
+	private FrozenUndirectedGraph<Integer> frozen;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		graph = new MyUndirectedGraph<>();
+		for(int i = 0; i < size; i++) {
+			graph.add(i);
+		}
+		for(int i = 1; i < size; i++) {
+			graph.connect(i - 1, i, 1 + random.nextInt(MAXIMUM_COST));
+		}
+		for(int i = 0; i < size * EXTRA_EDGES_PER_NODE; i++) {
+			graph.connect(random.nextInt(size), random.nextInt(size), 1 + random.nextInt(MAXIMUM_COST));
+		}
+		frozen = graph.freeze();
+	}
+
+	@Benchmark
+	public List<Integer> breadthFirstSearch() {
+		return graph.breadthFirstSearch(0, size - 1);
+	}
+
+	@Benchmark
+	public List<Integer> bidirectionalSearch() {
+		return graph.bidirectionalSearch(0, size - 1);
+	}
+
+	@Benchmark
+	public List<Integer> depthFirstSearch() {
+		return graph.depthFirstSearch(0, size - 1);
+	}
+
+	@Benchmark
+	public List<Integer> frozenBreadthFirstSearch() {
+		return frozen.breadthFirstSearch(0, size - 1);
+	}
+
+	@Benchmark
+	public List<Integer> frozenDepthFirstSearch() {
+		return frozen.depthFirstSearch(0, size - 1);
+	}
+
+	@Benchmark
+	public List<Integer> shortestPath() {
+		return graph.shortestPath(0, size - 1);
+	}
+
+	@Benchmark
+	public List<Integer> frozenShortestPath() {
+		return frozen.shortestPath(0, size - 1);
+	}
+
+	@Benchmark
+	public ParallelBreadthFirstSearch parallelBreadthFirstSearch() {
+		return frozen.parallelBreadthFirstSearch(0);
+	}
+
+	@Benchmark
+	public FrozenUndirectedGraph<Integer> freeze() {
+		return graph.freeze();
+	}
+
+	@Benchmark
+	public UndirectedGraph<Integer> minimumSpanningTree() {
+		return graph.minimumSpanningTree();
+	}
+
+	@Benchmark
+	public UndirectedGraph<Integer> parallelMinimumSpanningTree() {
+		return graph.parallelMinimumSpanningTree(ForkJoinPool.commonPool());
+	}
+
+	@Benchmark
+	public FrozenUndirectedGraph<Integer> frozenMinimumSpanningTree() {
+		return frozen.minimumSpanningTree();
+	}
+
+	@Benchmark
+	public FrozenUndirectedGraph<Integer> frozenParallelMinimumSpanningTree() {
+		return frozen.parallelMinimumSpanningTree(ForkJoinPool.commonPool());
+	}
+
+}
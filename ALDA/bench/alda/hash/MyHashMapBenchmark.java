@@ -0,0 +1,109 @@
+package alda.hash;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MyHashMap against java.util.HashMap. The put benchmarks fill an empty
+ * map with every key; the lookups go through all keys of a full map,
+ * half of them present and half of them missing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MyHashMapBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private String[] keys;
+	private String[] lookups;
+	private MyHashMap<String, Integer> myHashMap;
+	private HashMap<String, Integer> hashMap;
+
+	@Setup
+	public void setUp() {
+		keys = new String[size];
+		lookups = new String[size];
+		myHashMap = new MyHashMap<>();
+		hashMap = new HashMap<>();
+		for(int i = 0; i < size; i++) {
+			keys[i] = "key" + i;
+			lookups[i] = (i % 2 == 0) ? keys[i] : "missing" + i;
+			myHashMap.put(keys[i], i);
+			hashMap.put(keys[i], i);
+		}
+	}
+
+	@Benchmark
+	public MyHashMap<String, Integer> myHashMapPut() {
+		MyHashMap<String, Integer> map = new MyHashMap<>();
+		for(int i = 0; i < keys.length; i++) {
+			map.put(keys[i], i);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public MyHashMap<String, Integer> myHashMapPutPresized() {
+		MyHashMap<String, Integer> map = MyHashMap.withExpectedSize(keys.length);
+		for(int i = 0; i < keys.length; i++) {
+			map.put(keys[i], i);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public HashMap<String, Integer> hashMapPut() {
+		HashMap<String, Integer> map = new HashMap<>();
+		for(int i = 0; i < keys.length; i++) {
+			map.put(keys[i], i);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public void myHashMapGet(Blackhole blackhole) {
+		for(int i = 0; i < keys.length; i += 2) {
+			blackhole.consume(myHashMap.get(keys[i]));
+		}
+	}
+
+	@Benchmark
+	public void hashMapGet(Blackhole blackhole) {
+		for(int i = 0; i < keys.length; i += 2) {
+			blackhole.consume(hashMap.get(keys[i]));
+		}
+	}
+
+	@Benchmark
+	public void myHashMapContainsKey(Blackhole blackhole) {
+		for(String key : lookups) {
+			blackhole.consume(myHashMap.containsKey(key));
+		}
+	}
+
+	@Benchmark
+	public void hashMapContainsKey(Blackhole blackhole) {
+		for(String key : lookups) {
+			blackhole.consume(hashMap.containsKey(key));
+		}
+	}
+
+}
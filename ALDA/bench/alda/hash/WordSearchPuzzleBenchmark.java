@@ -0,0 +1,70 @@
+package alda.hash;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves the shipped grid with the shipped word list. Loading is timed
+ * separately from solving, since the dictionary is read once and then
+ * used for any number of grids. Must be run from the ALDA directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class WordSearchPuzzleBenchmark {
+
+	@Param({ "false", "true" })
+	private boolean useAutomaton;
+
+	private WordSearchPuzzle puzzle;
+
+	@Setup
+	public void setUp() {
+		puzzle = new WordSearchPuzzle();
+		puzzle.load(null, useAutomaton);
+	}
+
+	@Benchmark
+	public WordSearchPuzzle load() {
+		WordSearchPuzzle loaded = new WordSearchPuzzle();
+		loaded.load(null, useAutomaton);
+		return loaded;
+	}
+
+	@Benchmark
+	public List<WordSearchPuzzle.Word> solve() {
+		return puzzle.solve(useAutomaton);
+	}
+
+	/**
+	 * Solves into a WordBuffer instead of a list of Words; compare the
+	 * allocation rate with solve() under the GC profiler.
+	 */
+	@Benchmark
+	public WordBuffer solveIntoBuffer() {
+		WordBuffer buffer = new WordBuffer();
+		puzzle.solve(useAutomaton, buffer);
+		return buffer;
+	}
+
+	@Benchmark
+	public long countStream() {
+		return puzzle.stream().count();
+	}
+
+}
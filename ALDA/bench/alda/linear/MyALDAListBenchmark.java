@@ -0,0 +1,124 @@
+package alda.linear;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * MyALDAList against ArrayList and LinkedList: appending every element
+ * to an empty list, reading every index of a full list, and removing
+ * from the front of a full list until it is empty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MyALDAListBenchmark {
+
+	@Param({ "100", "10000" })
+	private int size;
+
+	private MyALDAList<Integer> myList;
+	private ArrayList<Integer> arrayList;
+	private LinkedList<Integer> linkedList;
+
+	@Setup
+	public void setUp() {
+		myList = new MyALDAList<>();
+		arrayList = new ArrayList<>();
+		linkedList = new LinkedList<>();
+		for(int i = 0; i < size; i++) {
+			myList.add(i);
+			arrayList.add(i);
+			linkedList.add(i);
+		}
+	}
+
+	@Benchmark
+	public MyALDAList<Integer> myListAdd() {
+		MyALDAList<Integer> list = new MyALDAList<>();
+		for(int i = 0; i < size; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public ArrayList<Integer> arrayListAdd() {
+		ArrayList<Integer> list = new ArrayList<>();
+		for(int i = 0; i < size; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public LinkedList<Integer> linkedListAdd() {
+		LinkedList<Integer> list = new LinkedList<>();
+		for(int i = 0; i < size; i++) {
+			list.add(i);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public void myListGet(Blackhole blackhole) {
+		for(int i = 0; i < size; i++) {
+			blackhole.consume(myList.get(i));
+		}
+	}
+
+	@Benchmark
+	public void arrayListGet(Blackhole blackhole) {
+		for(int i = 0; i < size; i++) {
+			blackhole.consume(arrayList.get(i));
+		}
+	}
+
+	@Benchmark
+	public void linkedListGet(Blackhole blackhole) {
+		for(int i = 0; i < size; i++) {
+			blackhole.consume(linkedList.get(i));
+		}
+	}
+
+	@Benchmark
+	public void myListRemove(Blackhole blackhole) {
+		MyALDAList<Integer> list = myListAdd();
+		while(list.size() > 0) {
+			blackhole.consume(list.remove(0));
+		}
+	}
+
+	@Benchmark
+	public void arrayListRemove(Blackhole blackhole) {
+		ArrayList<Integer> list = arrayListAdd();
+		while(list.size() > 0) {
+			blackhole.consume(list.remove(0));
+		}
+	}
+
+	@Benchmark
+	public void linkedListRemove(Blackhole blackhole) {
+		LinkedList<Integer> list = linkedListAdd();
+		while(list.size() > 0) {
+			blackhole.consume(list.remove(0));
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package alda.skip;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MySkipList against ConcurrentSkipListSet. Only insertion is measured,
+ * since searchNode() is not finished yet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MySkipListBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	@Benchmark
+	public MySkipList<Integer> skipListInsert() {
+		MySkipList<Integer> list = new MySkipList<>();
+		for(int i = 0; i < size; i++) {
+			list.insert(i);
+		}
+		return list;
+	}
+
+	@Benchmark
+	public ConcurrentSkipListSet<Integer> skipListSetAdd() {
+		ConcurrentSkipListSet<Integer> set = new ConcurrentSkipListSet<>();
+		for(int i = 0; i < size; i++) {
+			set.add(i);
+		}
+		return set;
+	}
+
+}
@@ -0,0 +1,87 @@
+package alda.tree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BinarySearchTreeNode against TreeSet. The keys are inserted in a fixed
+ * random order, since the tree does not balance itself and a sorted
+ * insertion order would turn it into a list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinarySearchTreeBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private Integer[] keys;
+	private BinarySearchTreeNode<Integer> tree;
+	private TreeSet<Integer> treeSet;
+
+	@Setup
+	public void setUp() {
+		List<Integer> shuffled = new ArrayList<>();
+		for(int i = 0; i < size; i++) {
+			shuffled.add(i);
+		}
+		Collections.shuffle(shuffled, new Random(42));
+		keys = shuffled.toArray(new Integer[size]);
+		tree = treeAdd();
+		treeSet = treeSetAdd();
+	}
+
+	@Benchmark
+	public BinarySearchTreeNode<Integer> treeAdd() {
+		BinarySearchTreeNode<Integer> root = new BinarySearchTreeNode<>(keys[0]);
+		for(int i = 1; i < keys.length; i++) {
+			root.add(keys[i]);
+		}
+		return root;
+	}
+
+	@Benchmark
+	public TreeSet<Integer> treeSetAdd() {
+		TreeSet<Integer> set = new TreeSet<>();
+		for(Integer key : keys) {
+			set.add(key);
+		}
+		return set;
+	}
+
+	@Benchmark
+	public void treeContains(Blackhole blackhole) {
+		for(Integer key : keys) {
+			blackhole.consume(tree.contains(key));
+		}
+	}
+
+	@Benchmark
+	public void treeSetContains(Blackhole blackhole) {
+		for(Integer key : keys) {
+			blackhole.consume(treeSet.contains(key));
+		}
+	}
+
+}
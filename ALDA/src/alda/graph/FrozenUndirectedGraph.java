@@ -0,0 +1,392 @@
+package alda.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
+
+import alda.hash.ObjectIntMap;
+
+/**
+ * Immutable snapshot of a MyUndirectedGraph in compressed sparse row
+ * form, made by MyUndirectedGraph.freeze(). Every vertex is numbered
+ * 0..n-1; the neighbours of vertex v are neighbors[offsets[v]] up to
+ * neighbors[offsets[v + 1]], sorted by number, with the cost of each
+ * edge at the same index in weights. A self-loop is listed once.
+ *
+ * The searches work on the numbers and plain int arrays only, so a step
+ * reads the next few ints of one array instead of hashing a vertex and
+ * walking a HashMap. The vertices themselves are only looked up at the
+ * ends of a query.
+ */
+public class FrozenUndirectedGraph<T> implements UndirectedGraph<T> {
+
+	private static final int NONE = -1;
+
+	private final Object[] vertices;
+	private final ObjectIntMap<T> ids;
+	private final int[] offsets;
+	private final int[] neighbors;
+	private final int[] weights;
+	private final int edgeCount;
+
+	/**
+	 * Takes over the arrays, as filled in by MyUndirectedGraph.freeze():
+	 * the neighbours of each vertex may come in any order and are
+	 * sorted here.
+	 * @param ids The number of every vertex, its index in vertices.
+	 */
+	FrozenUndirectedGraph(Object[] vertices, ObjectIntMap<T> ids, int[] offsets, int[] neighbors, int[] weights) {
+		int n = vertices.length;
+		this.vertices = vertices;
+		this.ids = ids;
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+		this.weights = weights;
+
+		long[] sorted = new long[0];
+		int selfLoops = 0;
+		for(int v = 0; v < n; v++) {
+			int degree = offsets[v + 1] - offsets[v];
+			if(sorted.length < degree) {
+				sorted = new long[degree];
+			}
+			for(int i = 0; i < degree; i++) {
+				int neighbor = neighbors[offsets[v] + i];
+				if(neighbor == v) {
+					selfLoops++;
+				}
+				sorted[i] = ((long) neighbor << 32) | (weights[offsets[v] + i] & 0xFFFFFFFFL);
+			}
+			Arrays.sort(sorted, 0, degree);
+			for(int i = 0; i < degree; i++) {
+				neighbors[offsets[v] + i] = (int) (sorted[i] >>> 32);
+				weights[offsets[v] + i] = (int) sorted[i];
+			}
+		}
+		edgeCount = (offsets[n] + selfLoops) / 2;
+	}
+
+	/**
+	 * @return The vertex with the given number.
+	 */
+	@SuppressWarnings("unchecked")
+	public T vertex(int id) {
+		return (T) vertices[id];
+	}
+
+	/**
+	 * @return The number of the vertex, or -1 if it is not in the graph.
+	 */
+	public int idOf(T vertex) {
+		return ids.getOrDefault(vertex, NONE);
+	}
+
+	/**
+	 * @return The index of the edge between the two vertices in
+	 * neighbors and weights, or NONE.
+	 */
+	private int edgeIndex(int from, int to) {
+		int index = Arrays.binarySearch(neighbors, offsets[from], offsets[from + 1], to);
+		return (index >= 0) ? index : NONE;
+	}
+
+	@Override
+	public int getNumberOfNodes() {
+		return vertices.length;
+	}
+
+	@Override
+	public int getNumberOfEdges() {
+		return edgeCount;
+	}
+
+	/**
+	 * The snapshot cannot be changed.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public boolean add(T newNode) {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * The snapshot cannot be changed.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public boolean connect(T node1, T node2, int cost) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public boolean isConnected(T node1, T node2) {
+		return getCost(node1, node2) != -1;
+	}
+
+	/**
+	 * The cost of the edge between the two vertices, found by binary
+	 * search among the neighbours of the first.
+	 */
+	@Override
+	public int getCost(T node1, T node2) {
+		int from = idOf(node1);
+		int to = idOf(node2);
+		if( from == NONE || to == NONE )
+			return -1;
+		int index = edgeIndex(from, to);
+		return (index == NONE) ? -1 : weights[index];
+	}
+
+	@Override
+	public List<T> depthFirstSearch(T start, T end) {
+		int from = idOf(start);
+		int to = idOf(end);
+		if( from == NONE || to == NONE )
+			return new ArrayList<T>();
+
+		int[] parent = new int[vertices.length];
+		Arrays.fill(parent, NONE);
+		int[] stack = new int[vertices.length];
+		int top = 0;
+		stack[top++] = from;
+		parent[from] = from;
+
+		while( top > 0 && parent[to] == NONE ) {
+			int v = stack[--top];
+			for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int w = neighbors[i];
+				if(parent[w] == NONE) {
+					parent[w] = v;
+					stack[top++] = w;
+				}
+			}
+		}
+		return path(parent, from, to);
+	}
+
+	@Override
+	public List<T> breadthFirstSearch(T start, T end) {
+		int from = idOf(start);
+		int to = idOf(end);
+		if( from == NONE || to == NONE )
+			return new ArrayList<T>();
+
+		int[] parent = new int[vertices.length];
+		Arrays.fill(parent, NONE);
+		int[] queue = new int[vertices.length];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = from;
+		parent[from] = from;
+
+		while( head < tail && parent[to] == NONE ) {
+			int v = queue[head++];
+			for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int w = neighbors[i];
+				if(parent[w] == NONE) {
+					parent[w] = v;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return path(parent, from, to);
+	}
+
+	@Override
+	public List<T> shortestPath(T start, T end) {
+		return shortestPath(start, end, vertex -> 0);
+	}
+
+	@Override
+	public List<T> shortestPath(T start, T end, ToIntFunction<? super T> heuristic) {
+		int from = idOf(start);
+		int to = idOf(end);
+		if( from == NONE || to == NONE )
+			return new ArrayList<T>();
+		int[] parent = new int[vertices.length];
+		dijkstra(from, to, heuristic, parent);
+		return path(parent, from, to);
+	}
+
+	@Override
+	public Map<T, Long> shortestDistances(T start) {
+		Map<T, Long> distances = new HashMap<T, Long>();
+		int from = idOf(start);
+		if( from == NONE )
+			return distances;
+		int[] parent = new int[vertices.length];
+		long[] distance = dijkstra(from, NONE, null, parent);
+		for(int v = 0; v < vertices.length; v++) {
+			if(parent[v] != NONE) {
+				distances.put(vertex(v), distance[v]);
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * Dijkstra's algorithm, or A* with a heuristic, on the edge arrays.
+	 * The heuristic is asked once per vertex and remembered.
+	 * @param to The vertex to stop at once it is settled, or NONE to
+	 * settle every reachable vertex.
+	 * @param heuristic null for none.
+	 * @param parent Filled in with the parent of every vertex reached,
+	 * NONE for the others.
+	 * @return The distance of every vertex reached.
+	 */
+	private long[] dijkstra(int from, int to, ToIntFunction<? super T> heuristic, int[] parent) {
+		int n = vertices.length;
+		long[] distance = new long[n];
+		Arrays.fill(distance, Long.MAX_VALUE);
+		Arrays.fill(parent, NONE);
+		int[] estimate = null;
+		if(heuristic != null) {
+			estimate = new int[n];
+			Arrays.fill(estimate, NONE);
+		}
+		IndexedMinHeap heap = new IndexedMinHeap(n);
+		distance[from] = 0;
+		parent[from] = from;
+		heap.offer(from, 0);
+
+		while( !heap.isEmpty() ) {
+			int v = heap.poll();
+			if(v == to) {
+				break;
+			}
+			for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int w = neighbors[i];
+				long d = distance[v] + weights[i];
+				if(d < distance[w]) {
+					distance[w] = d;
+					parent[w] = v;
+					if(estimate != null && estimate[w] == NONE) {
+						estimate[w] = heuristic.applyAsInt(vertex(w));
+					}
+					heap.offer(w, (estimate != null) ? d + estimate[w] : d);
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * Finds the hop distance and a breadth-first parent of every vertex
+	 * from start, a level at a time on the common ForkJoinPool.
+	 */
+	public ParallelBreadthFirstSearch parallelBreadthFirstSearch(T start) {
+		return parallelBreadthFirstSearch(start, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param pool The pool the levels are expanded on.
+	 */
+	public ParallelBreadthFirstSearch parallelBreadthFirstSearch(T start, ForkJoinPool pool) {
+		int from = idOf(start);
+		if(from == NONE) {
+			throw new NoSuchElementException("No vertex " + start + ".");
+		}
+		return new ParallelBreadthFirstSearch(offsets, neighbors, from, pool);
+	}
+
+	/**
+	 * Follows the parents back from to; empty if to was never reached.
+	 */
+	private List<T> path(int[] parent, int from, int to) {
+		List<T> path = new ArrayList<T>();
+		if(parent[to] == NONE) {
+			return path;
+		}
+		for(int v = to; v != from; v = parent[v]) {
+			path.add(vertex(v));
+		}
+		path.add(vertex(from));
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Kruskal's algorithm; see MinimumSpanningForest. A graph that is not
+	 * connected gives a minimum spanning forest, one tree per component.
+	 * @return A snapshot with every vertex of this one and the edges of
+	 * the forest.
+	 */
+	@Override
+	public FrozenUndirectedGraph<T> minimumSpanningTree() {
+		int[][] edges = edgeList();
+		return forest(edges, MinimumSpanningForest.kruskal(vertices.length, edges[0], edges[1], edges[2]));
+	}
+
+	/**
+	 * As minimumSpanningTree(), with Borůvka's algorithm run on the pool.
+	 */
+	public FrozenUndirectedGraph<T> parallelMinimumSpanningTree(ForkJoinPool pool) {
+		int[][] edges = edgeList();
+		return forest(edges, MinimumSpanningForest.boruvka(vertices.length, edges[0], edges[1], edges[2], pool));
+	}
+
+	/**
+	 * @return Every edge once, as from, to and weights arrays; the
+	 * self-loops are left out.
+	 */
+	private int[][] edgeList() {
+		int count = 0;
+		for(int v = 0; v < vertices.length; v++) {
+			for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+				if(v < neighbors[i]) {
+					count++;
+				}
+			}
+		}
+		int[] from = new int[count];
+		int[] to = new int[count];
+		int[] costs = new int[count];
+		int e = 0;
+		for(int v = 0; v < vertices.length; v++) {
+			for(int i = offsets[v]; i < offsets[v + 1]; i++) {
+				if(v < neighbors[i]) {
+					from[e] = v;
+					to[e] = neighbors[i];
+					costs[e] = weights[i];
+					e++;
+				}
+			}
+		}
+		return new int[][] { from, to, costs };
+	}
+
+	/**
+	 * Builds the snapshot holding the given edges of the list only. The
+	 * vertices and their numbers are shared with this snapshot.
+	 */
+	private FrozenUndirectedGraph<T> forest(int[][] edges, int[] chosen) {
+		int n = vertices.length;
+		int[] forestOffsets = new int[n + 1];
+		for(int e : chosen) {
+			forestOffsets[edges[0][e] + 1]++;
+			forestOffsets[edges[1][e] + 1]++;
+		}
+		for(int v = 0; v < n; v++) {
+			forestOffsets[v + 1] += forestOffsets[v];
+		}
+		int[] fill = Arrays.copyOf(forestOffsets, n);
+		int[] forestNeighbors = new int[2 * chosen.length];
+		int[] forestWeights = new int[2 * chosen.length];
+		for(int e : chosen) {
+			int from = edges[0][e];
+			int to = edges[1][e];
+			forestNeighbors[fill[from]] = to;
+			forestWeights[fill[from]++] = edges[2][e];
+			forestNeighbors[fill[to]] = from;
+			forestWeights[fill[to]++] = edges[2][e];
+		}
+		return new FrozenUndirectedGraph<T>(vertices, ids, forestOffsets, forestNeighbors, forestWeights);
+	}
+
+}
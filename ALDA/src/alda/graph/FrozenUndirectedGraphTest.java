@@ -0,0 +1,140 @@
+package alda.graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.*;
+
+public class FrozenUndirectedGraphTest {
+
+	private MyUndirectedGraph<String> graph = new MyUndirectedGraph<>();
+
+	// Samma graf som i UndirectedGraphTest.
+	private void createExampleGraph() {
+		for (char node = 'A'; node <= 'J'; node++) {
+			graph.add("" + node);
+		}
+		graph.connect("A", "A", 1);
+		graph.connect("A", "G", 3);
+		graph.connect("G", "B", 28);
+		graph.connect("B", "F", 5);
+		graph.connect("F", "F", 3);
+		graph.connect("F", "H", 1);
+		graph.connect("H", "D", 1);
+		graph.connect("H", "I", 3);
+		graph.connect("D", "I", 1);
+		graph.connect("B", "D", 2);
+		graph.connect("B", "C", 3);
+		graph.connect("C", "D", 5);
+		graph.connect("E", "C", 2);
+		graph.connect("E", "D", 2);
+		graph.connect("J", "D", 5);
+	}
+
+	private void testPath(UndirectedGraph<String> frozen, String start, String end, List<String> path) {
+		assertEquals(start, path.get(0));
+		assertEquals(end, path.get(path.size() - 1));
+		for (int i = 1; i < path.size(); i++) {
+			assertTrue(frozen.isConnected(path.get(i - 1), path.get(i)));
+		}
+	}
+
+	@Test
+	public void testQueries() {
+		createExampleGraph();
+		FrozenUndirectedGraph<String> frozen = graph.freeze();
+		assertEquals(10, frozen.getNumberOfNodes());
+		assertEquals(15, frozen.getNumberOfEdges());
+		assertEquals(1, frozen.getCost("A", "A"));
+		assertEquals(28, frozen.getCost("B", "G"));
+		assertEquals(28, frozen.getCost("G", "B"));
+		assertEquals(-1, frozen.getCost("A", "J"));
+		assertEquals(-1, frozen.getCost("A", "Z"));
+		assertFalse(frozen.isConnected("A", "B"));
+		assertTrue(frozen.isConnected("D", "J"));
+
+		List<String> path = frozen.breadthFirstSearch("A", "J");
+		assertEquals(5, path.size());
+		testPath(frozen, "A", "J", path);
+		assertEquals(4, frozen.breadthFirstSearch("F", "E").size());
+		testPath(frozen, "J", "A", frozen.depthFirstSearch("J", "A"));
+		assertEquals(1, frozen.depthFirstSearch("C", "C").size());
+	}
+
+	@Test
+	public void testSnapshotIsNotChanged() {
+		createExampleGraph();
+		FrozenUndirectedGraph<String> frozen = graph.freeze();
+		graph.add("K");
+		graph.connect("A", "K", 1);
+		assertEquals(10, frozen.getNumberOfNodes());
+		assertEquals(-1, frozen.getCost("A", "K"));
+		assertTrue(frozen.breadthFirstSearch("A", "K").isEmpty());
+	}
+
+	@Test
+	public void testParallelBreadthFirstSearch() {
+		MyUndirectedGraph<Integer> big = new MyUndirectedGraph<>();
+		Random random = new Random(3);
+		int size = 100000;
+		for (int i = 0; i < size; i++) {
+			big.add(i);
+		}
+		for (int i = 0; i < 4 * size; i++) {
+			big.connect(random.nextInt(size - 10), random.nextInt(size - 10), 1);
+		}
+		FrozenUndirectedGraph<Integer> frozen = big.freeze();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		ParallelBreadthFirstSearch search = frozen.parallelBreadthFirstSearch(0, pool);
+		pool.shutdown();
+		assertTrue(search.bottomUpLevels() > 0);
+
+		// Alla bågar kostar 1, så Dijkstra ger antalet steg.
+		Map<Integer, Long> expected = frozen.shortestDistances(0);
+		int[] distances = search.distances();
+		int[] parents = search.parents();
+		int reached = 0;
+		for (int v = 0; v < size; v++) {
+			int vertex = frozen.vertex(v);
+			if (distances[v] == ParallelBreadthFirstSearch.UNREACHED) {
+				assertFalse(expected.containsKey(vertex));
+				continue;
+			}
+			reached++;
+			assertEquals(expected.get(vertex).longValue(), distances[v]);
+			if (vertex != 0) {
+				assertEquals(distances[v] - 1, distances[parents[v]]);
+				assertTrue(frozen.isConnected(frozen.vertex(parents[v]), vertex));
+			}
+		}
+		assertEquals(expected.size(), reached);
+		assertEquals(reached, search.reached());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCannotConnect() {
+		createExampleGraph();
+		graph.freeze().connect("A", "B", 1);
+	}
+
+	@Test
+	public void testMinimumSpanningTree() {
+		createExampleGraph();
+		UndirectedGraph<String> mst = graph.freeze().minimumSpanningTree();
+		int totalCost = 0;
+		for (char node1 = 'A'; node1 <= 'J'; node1++) {
+			for (char node2 = node1; node2 <= 'J'; node2++) {
+				if (mst.isConnected("" + node1, "" + node2)) {
+					totalCost += mst.getCost("" + node1, "" + node2);
+				}
+			}
+		}
+		assertEquals(9, mst.getNumberOfEdges());
+		assertEquals(45, totalCost);
+	}
+
+}
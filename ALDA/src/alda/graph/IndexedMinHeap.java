@@ -0,0 +1,144 @@
+package alda.graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap of the ints 0..capacity-1, each with a long key. The
+ * position of every item in the heap is kept in an array, so an item
+ * already in the heap can have its key lowered in place instead of
+ * being added a second time; the heap never holds more than one entry
+ * per item. ensureCapacity() makes room for more items, so a caller
+ * that numbers its items as it meets them need not know how many there
+ * will be.
+ */
+public class IndexedMinHeap {
+
+	private static final int ABSENT = -1;
+
+	private int[] heap;
+	private long[] keys;		// by item
+	private int[] position;	// by item: its index in heap, or ABSENT
+	private int size = 0;
+
+	/**
+	 * @param capacity The items are the ints 0..capacity-1.
+	 */
+	public IndexedMinHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new long[capacity];
+		position = new int[capacity];
+		Arrays.fill(position, ABSENT);
+	}
+
+	/**
+	 * Makes the items 0..capacity-1 valid, keeping those in the heap.
+	 */
+	public void ensureCapacity(int capacity) {
+		int oldCapacity = position.length;
+		if(capacity <= oldCapacity) {
+			return;
+		}
+		heap = Arrays.copyOf(heap, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+		position = Arrays.copyOf(position, capacity);
+		Arrays.fill(position, oldCapacity, capacity, ABSENT);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int item) {
+		return position[item] != ABSENT;
+	}
+
+	/**
+	 * Adds the item with the given key, or lowers its key if it is
+	 * already in the heap with a higher one.
+	 * @return false if the item is in the heap with a key no higher.
+	 */
+	public boolean offer(int item, long key) {
+		int index = position[item];
+		if(index == ABSENT) {
+			index = size++;
+			heap[index] = item;
+			position[item] = index;
+		} else if(keys[item] <= key) {
+			return false;
+		}
+		keys[item] = key;
+		siftUp(index);
+		return true;
+	}
+
+	/**
+	 * @return The key of the item at the top of the heap.
+	 */
+	public long peekKey() {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		return keys[heap[0]];
+	}
+
+	/**
+	 * Removes the item with the lowest key.
+	 * @return The item.
+	 */
+	public int poll() {
+		if(size == 0) {
+			throw new NoSuchElementException();
+		}
+		int top = heap[0];
+		position[top] = ABSENT;
+		int last = heap[--size];
+		if(size > 0) {
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int index) {
+		int item = heap[index];
+		long key = keys[item];
+		while(index > 0) {
+			int parent = (index - 1) >>> 1;
+			int parentItem = heap[parent];
+			if(keys[parentItem] <= key) {
+				break;
+			}
+			heap[index] = parentItem;
+			position[parentItem] = index;
+			index = parent;
+		}
+		heap[index] = item;
+		position[item] = index;
+	}
+
+	private void siftDown(int index) {
+		int item = heap[index];
+		long key = keys[item];
+		for(int child = 2 * index + 1; child < size; child = 2 * index + 1) {
+			if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			int childItem = heap[child];
+			if(keys[childItem] >= key) {
+				break;
+			}
+			heap[index] = childItem;
+			position[childItem] = index;
+			index = child;
+		}
+		heap[index] = item;
+		position[item] = index;
+	}
+
+}
@@ -0,0 +1,167 @@
+package alda.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Minimum spanning forests of a graph given as an edge list: edge e runs
+ * between from[e] and to[e] and costs weights[e], with the vertices
+ * numbered 0..n-1. Both algorithms return the indexes of the edges in
+ * the forest, one tree per connected component.
+ *
+ * Edges are compared by their cost and then by their index, so no two
+ * edges ever tie and both algorithms pick the very same forest.
+ */
+public class MinimumSpanningForest {
+
+	private static final long NONE = Long.MAX_VALUE;
+	private static final int EDGES_PER_TASK = 1 << 14;
+
+	private MinimumSpanningForest() {
+	}
+
+	/**
+	 * Orders an edge by cost first, index second.
+	 */
+	private static long key(int[] weights, int e) {
+		return ((long) weights[e] << 32) | e;
+	}
+
+	/**
+	 * Kruskal's algorithm: the edges are sorted once, with
+	 * Arrays.parallelSort on their keys, and taken cheapest first unless
+	 * both ends already are in the same tree of a UnionFind.
+	 */
+	public static int[] kruskal(int n, int[] from, int[] to, int[] weights) {
+		long[] order = new long[from.length];
+		for(int e = 0; e < order.length; e++) {
+			order[e] = key(weights, e);
+		}
+		Arrays.parallelSort(order);
+
+		UnionFind trees = new UnionFind(n);
+		int[] forest = new int[Math.max(0, n - 1)];
+		int count = 0;
+		for(int i = 0; i < order.length && count < forest.length; i++) {
+			int e = (int) order[i];
+			if(trees.union(from[e], to[e])) {
+				forest[count++] = e;
+			}
+		}
+		return Arrays.copyOf(forest, count);
+	}
+
+	/**
+	 * Borůvka's algorithm: in every round each tree picks the cheapest
+	 * edge leaving it, and all of those edges are added at once, which
+	 * at least halves the number of trees. The edges are scanned in
+	 * parallel on the pool, each keeping the cheapest edge of both its
+	 * trees up to date with a compare-and-set; the merges between rounds
+	 * are sequential, one pass over the vertices. Edges that end up
+	 * inside a tree are dropped after every round, so each round scans
+	 * fewer edges than the last.
+	 */
+	public static int[] boruvka(int n, int[] from, int[] to, int[] weights, ForkJoinPool pool) {
+		UnionFind trees = new UnionFind(n);
+		int[] tree = new int[n];	// the root of every vertex, as of the start of the round
+		for(int v = 0; v < n; v++) {
+			tree[v] = v;
+		}
+		AtomicLongArray cheapest = new AtomicLongArray(n);
+		int[] forest = new int[Math.max(0, n - 1)];
+		int count = 0;
+		int[] live = new int[from.length];
+		for(int e = 0; e < live.length; e++) {
+			live[e] = e;
+		}
+		int liveCount = live.length;
+
+		for(boolean merged = true; merged && count < forest.length; ) {
+			for(int v = 0; v < n; v++) {
+				cheapest.set(v, NONE);
+			}
+			pool.invoke(new CheapestEdgeTask(from, to, weights, tree, cheapest, live, 0, liveCount));
+
+			merged = false;
+			for(int v = 0; v < n; v++) {
+				long key = cheapest.get(v);
+				if(key != NONE) {
+					int e = (int) key;
+					if(trees.union(from[e], to[e])) {
+						forest[count++] = e;
+						merged = true;
+					}
+				}
+			}
+			for(int v = 0; v < n; v++) {
+				tree[v] = trees.find(v);
+			}
+			int kept = 0;
+			for(int i = 0; i < liveCount; i++) {
+				int e = live[i];
+				if(tree[from[e]] != tree[to[e]]) {
+					live[kept++] = e;
+				}
+			}
+			liveCount = kept;
+		}
+		return Arrays.copyOf(forest, count);
+	}
+
+	private static class CheapestEdgeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] from;
+		private final int[] to;
+		private final int[] weights;
+		private final int[] tree;
+		private final AtomicLongArray cheapest;
+		private final int[] live;
+		private final int first;
+		private final int last;
+
+		CheapestEdgeTask(int[] from, int[] to, int[] weights, int[] tree, AtomicLongArray cheapest, int[] live, int first, int last) {
+			this.from = from;
+			this.to = to;
+			this.weights = weights;
+			this.tree = tree;
+			this.cheapest = cheapest;
+			this.live = live;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			if(last - first > EDGES_PER_TASK) {
+				int middle = (first + last) >>> 1;
+				invokeAll(new CheapestEdgeTask(from, to, weights, tree, cheapest, live, first, middle),
+						new CheapestEdgeTask(from, to, weights, tree, cheapest, live, middle, last));
+				return;
+			}
+			for(int i = first; i < last; i++) {
+				int e = live[i];
+				int treeFrom = tree[from[e]];
+				int treeTo = tree[to[e]];
+				if(treeFrom != treeTo) {
+					long key = key(weights, e);
+					lower(treeFrom, key);
+					lower(treeTo, key);
+				}
+			}
+		}
+
+		private void lower(int root, long key) {
+			for(long current = cheapest.get(root); key < current; current = cheapest.get(root)) {
+				if(cheapest.compareAndSet(root, current, key)) {
+					return;
+				}
+			}
+		}
+
+	}
+
+}
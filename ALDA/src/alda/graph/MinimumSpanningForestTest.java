@@ -0,0 +1,72 @@
+package alda.graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.*;
+
+public class MinimumSpanningForestTest {
+
+	@Test
+	public void testKruskalAndBoruvkaAgree() {
+		// Två komponenter, 0..2999 och 3000..3999, med många lika vikter.
+		Random random = new Random(11);
+		int n = 4000;
+		int m = 40000;
+		int[] from = new int[m];
+		int[] to = new int[m];
+		int[] weights = new int[m];
+		for (int e = 0; e < m; e++) {
+			int offset = (e % 4 == 0) ? 3000 : 0;
+			int range = (e % 4 == 0) ? 1000 : 3000;
+			from[e] = offset + random.nextInt(range);
+			to[e] = offset + random.nextInt(range);
+			weights[e] = 1 + random.nextInt(10);
+		}
+		UnionFind components = new UnionFind(n);
+		for (int e = 0; e < m; e++) {
+			components.union(from[e], to[e]);
+		}
+
+		int[] kruskal = MinimumSpanningForest.kruskal(n, from, to, weights);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		int[] boruvka = MinimumSpanningForest.boruvka(n, from, to, weights, pool);
+		pool.shutdown();
+
+		assertEquals(n - components.count(), kruskal.length);
+		Arrays.sort(kruskal);
+		Arrays.sort(boruvka);
+		assertArrayEquals(kruskal, boruvka);
+	}
+
+	@Test
+	public void testForest() {
+		MyUndirectedGraph<String> graph = new MyUndirectedGraph<>();
+		for (String node : new String[] { "A", "B", "C", "D", "E" }) {
+			graph.add(node);
+		}
+		graph.connect("A", "B", 4);
+		graph.connect("B", "C", 1);
+		graph.connect("A", "C", 2);
+		graph.connect("D", "E", 7);
+		graph.connect("D", "D", 1);
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		for (UndirectedGraph<String> forest : Arrays.asList(graph.minimumSpanningTree(),
+				graph.parallelMinimumSpanningTree(pool), graph.freeze().minimumSpanningTree(),
+				graph.freeze().parallelMinimumSpanningTree(pool))) {
+			assertEquals(5, forest.getNumberOfNodes());
+			assertEquals(3, forest.getNumberOfEdges());
+			assertEquals(1, forest.getCost("B", "C"));
+			assertEquals(2, forest.getCost("C", "A"));
+			assertEquals(7, forest.getCost("E", "D"));
+			assertFalse(forest.isConnected("A", "B"));
+			assertFalse(forest.isConnected("D", "D"));
+		}
+		pool.shutdown();
+	}
+
+}
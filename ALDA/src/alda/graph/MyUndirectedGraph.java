@@ -2,6 +2,10 @@ package alda.graph;
 
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToIntFunction;
+
+import alda.hash.ObjectIntMap;
 
 public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 	
@@ -46,6 +50,36 @@ public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 		}
 	}
 
+	/**
+	 * Compiles the graph into an immutable FrozenUndirectedGraph, whose
+	 * searches run on int arrays instead of the maps. Changes made to
+	 * this graph afterwards are not seen by the snapshot.
+	 */
+	public FrozenUndirectedGraph<T> freeze() {
+		int n = graph.size();
+		Object[] vertices = new Object[n];
+		ObjectIntMap<T> ids = new ObjectIntMap<>(2 * n);
+		int[] offsets = new int[n + 1];
+		int id = 0;
+		for(Map.Entry<T, HashMap<T, Edge<T>>> entry : graph.entrySet()) {
+			vertices[id] = entry.getKey();
+			ids.put(entry.getKey(), id);
+			offsets[id + 1] = offsets[id] + entry.getValue().size();
+			id++;
+		}
+		int[] neighbors = new int[offsets[n]];
+		int[] weights = new int[offsets[n]];
+		int index = 0;
+		for(HashMap<T, Edge<T>> edges : graph.values()) {
+			for(Map.Entry<T, Edge<T>> edge : edges.entrySet()) {
+				neighbors[index] = ids.get(edge.getKey());
+				weights[index] = edge.getValue().getCost();
+				index++;
+			}
+		}
+		return new FrozenUndirectedGraph<T>(vertices, ids, offsets, neighbors, weights);
+	}
+
 	@Override
 	public int getNumberOfNodes() {
 		return graph.size();
@@ -84,31 +118,131 @@ public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 		return ( graph.get(vertex1).containsKey(vertex2) /* || graph.get(vertex2).containsKey(vertex1) */ );
 	}
 
+	/**
+	 * The cost of the edge between the two vertices, or -1 if there is
+	 * none; the cheapest path is found by shortestPath().
+	 */
 	@Override
 	public int getCost(T vertex1, T vertex2) {
 		if( !isVertex(vertex1) || !isVertex(vertex2) )
 			return -1;
-
-		Deque<T> vertexChain = new LinkedList<T>(breadthFirstSearch(vertex1, vertex2));
-		int cost = 0;
+		Edge<T> edge = graph.get(vertex1).get(vertex2);
+		return (edge == null) ? -1 : edge.getCost();
+	}
+	
+	@Override
+	public List<T> shortestPath(T start, T end) {
+		return shortestPath(start, end, vertex -> 0);
+	}
+	
+	@Override
+	public List<T> shortestPath(T start, T end, ToIntFunction<? super T> heuristic) {
+		if( !isVertex(start) || !isVertex(end) )
+			return new LinkedList<T>();
 		
-		if( vertexChain.size() == 1 && graph.get(vertex1).containsKey(vertex1) ) {
-			return graph.get(vertex1).get(vertex1).getCost();
+		ShortestPathSearch search = new ShortestPathSearch(start, heuristic);
+		int target = search.idOf(end);
+		search.run(target);
+		
+		LinkedList<T> returnList = new LinkedList<T>();
+		if(search.parent[target] == ShortestPathSearch.NONE)
+			return returnList;
+		for(int v = target; ; v = search.parent[v]) {
+			returnList.addFirst(search.vertices.get(v));
+			if(v == search.parent[v])
+				break;
+		}
+		return returnList;
+	}
+	
+	@Override
+	public Map<T, Long> shortestDistances(T start) {
+		Map<T, Long> distances = new HashMap<T, Long>();
+		if( !isVertex(start) )
+			return distances;
+		
+		ShortestPathSearch search = new ShortestPathSearch(start, vertex -> 0);
+		search.run(ShortestPathSearch.NONE);
+		for(int v = 0; v < search.vertices.size(); v++) {
+			distances.put(search.vertices.get(v), search.distance[v]);
+		}
+		return distances;
+	}
+	
+	/**
+	 * Dijkstra's algorithm, or A* when the heuristic is not 0. The
+	 * vertices are numbered as they are first reached, so the distances,
+	 * the parents and the IndexedMinHeap are all plain arrays indexed by
+	 * number, and a vertex whose distance drops has its key lowered in
+	 * the heap instead of being queued again. The arrays start small and
+	 * grow with the number of vertices reached, so a query that stops
+	 * early on a large graph does not pay for the whole graph.
+	 */
+	private class ShortestPathSearch {
+		
+		static final int NONE = -1;
+		static final int INITIAL_CAPACITY = 16;
+		
+		final ToIntFunction<? super T> heuristic;
+		final ObjectIntMap<T> ids = new ObjectIntMap<T>();
+		final List<T> vertices = new ArrayList<T>();
+		long[] distance = new long[Math.min(INITIAL_CAPACITY, graph.size())];
+		int[] parent = new int[distance.length];
+		final IndexedMinHeap heap = new IndexedMinHeap(distance.length);
+		
+		ShortestPathSearch(T start, ToIntFunction<? super T> heuristic) {
+			this.heuristic = heuristic;
+			int source = idOf(start);
+			distance[source] = 0;
+			parent[source] = source;
+			heap.offer(source, heuristic.applyAsInt(start));
 		}
 		
-		T vertex = null;
-		T previousVertex = null;
+		int idOf(T vertex) {
+			int id = ids.getOrDefault(vertex, NONE);
+			if(id == NONE) {
+				id = vertices.size();
+				vertices.add(vertex);
+				ids.put(vertex, id);
+				if(id == distance.length) {
+					int capacity = Math.min(2 * id, graph.size());
+					distance = Arrays.copyOf(distance, capacity);
+					parent = Arrays.copyOf(parent, capacity);
+					heap.ensureCapacity(capacity);
+				}
+				distance[id] = Long.MAX_VALUE;
+				parent[id] = NONE;
+			}
+			return id;
+		}
 		
-		while(!vertexChain.isEmpty()) {
-			vertex = vertexChain.poll();
-			if(previousVertex != null) {
-				cost += graph.get(previousVertex).get(vertex).getCost();
+		/**
+		 * Settles vertices in order until target is settled, or until
+		 * every reachable vertex is if target is NONE.
+		 */
+		void run(int target) {
+			while(!heap.isEmpty()) {
+				int v = heap.poll();
+				if(v == target)
+					return;
+				for(Map.Entry<T, Edge<T>> edge : graph.get(vertices.get(v)).entrySet()) {
+					int w = idOf(edge.getKey());
+					long d = distance[v] + edge.getValue().getCost();
+					if(d < distance[w]) {
+						distance[w] = d;
+						parent[w] = v;
+						heap.offer(w, d + heuristic.applyAsInt(edge.getKey()));
+					}
+				}
 			}
-			previousVertex = vertex;
 		}
-		return cost;
+		
 	}
 
+	/**
+	 * Stops as soon as end has been reached, rather than exploring the
+	 * rest of the component first.
+	 */
 	@Override
 	public List<T> depthFirstSearch(T start, T end) {
 		if( !isVertex(start) || !isVertex(end) )
@@ -122,7 +256,7 @@ public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 		queue.add(start);
 		pathMap.put(start, null);
 		
-		while( !queue.isEmpty() ) {
+		while( !queue.isEmpty() && !pathMap.containsKey(end) ) {
 			activeVertex = queue.pop();
 			for(T adjacentVertex : graph.get(activeVertex).keySet()) {
 				if(!pathMap.containsKey(adjacentVertex)) {
@@ -132,12 +266,18 @@ public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 			}
 		}
 		
+		if( !pathMap.containsKey(end) )
+			return returnList;
 		for(T v = end; pathMap.get(v) != v; v = pathMap.get(v)) {
 			returnList.addFirst(v);
 		}
 		return returnList;
 	}
 
+	/**
+	 * Stops as soon as end has been reached, rather than exploring the
+	 * rest of the component first.
+	 */
 	@Override
 	public List<T> breadthFirstSearch(T start, T end) {
 		if( !isVertex(start) || !isVertex(end) )
@@ -151,7 +291,7 @@ public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 		queue.add(start);
 		pathMap.put(start, null);
 		
-		while( !queue.isEmpty() )
+		while( !queue.isEmpty() && !pathMap.containsKey(end) )
 		{
 			activeVertex = queue.poll();
 			for(T adjacentVertex : graph.get(activeVertex).keySet())
@@ -166,75 +306,128 @@ public class MyUndirectedGraph<T> implements UndirectedGraph<T> {
 		
 		}
 		
+		if( !pathMap.containsKey(end) )
+			return returnList;
 		for(T v = end; pathMap.get(v) != v; v = pathMap.get(v)) {
 			returnList.addFirst(v);
 		}
 		return returnList;
 	}
 
-	@Override
-	public UndirectedGraph<T> minimumSpanningTree() {
-		if(graph.isEmpty())
-			return new MyUndirectedGraph<T>();
-		
-		MyUndirectedGraph<T> mst = new MyUndirectedGraph<T>();
-		PriorityQueue<Edge<T>> edgeQueue = new PriorityQueue<>();
-		Queue<T> vertexQueue = new LinkedList<T>();
-		HashMap<T, T> pathMap = new HashMap<>();
-		HashMap<T, Integer> costMap = new HashMap<>();
-		
-		T startingVertex = this.graph.keySet().iterator().next();
-		T fromVertex = startingVertex;
-		T toVertex = null;
-		
-		Edge<T> bestEdge = null;
-		
-		costMap.put(startingVertex, 0);
-		pathMap.put(startingVertex, null);
-		mst.add(startingVertex);
-		vertexQueue.add(startingVertex);
+	/**
+	 * Breadth-first search from both ends at once. Each round expands one
+	 * whole level of whichever frontier is smaller, and the search stops
+	 * at the first vertex the two sides have both reached. Until then the
+	 * two sides are disjoint, so that vertex lies on a path with the
+	 * fewest edges. On a graph where the number of vertices grows quickly
+	 * with the distance, this reaches far fewer vertices than
+	 * breadthFirstSearch.
+	 * @return The vertices on the path from start to end, or an empty
+	 * list if there is none.
+	 */
+	public List<T> bidirectionalSearch(T start, T end) {
+		LinkedList<T> returnList = new LinkedList<T>();
+		if( !isVertex(start) || !isVertex(end) )
+			return returnList;
 		
-		System.out.println("Starting vertex: " + startingVertex.toString() + " : Graph vertices: " + this.getNumberOfNodes());
+		Map<T, T> forwardMap = new HashMap<T, T>();
+		Map<T, T> backwardMap = new HashMap<T, T>();
+		Deque<T> forwardQueue = new ArrayDeque<T>();
+		Deque<T> backwardQueue = new ArrayDeque<T>();
+		forwardMap.put(start, null);
+		backwardMap.put(end, null);
+		forwardQueue.add(start);
+		backwardQueue.add(end);
 		
-		while(mst.getNumberOfEdges() < graph.size()-1) {
+		T meeting = start.equals(end) ? start : null;
+		while( meeting == null && !forwardQueue.isEmpty() && !backwardQueue.isEmpty() ) {
+			if(forwardQueue.size() <= backwardQueue.size())
+				meeting = expandLevel(forwardQueue, forwardMap, backwardMap);
+			else
+				meeting = expandLevel(backwardQueue, backwardMap, forwardMap);
+		}
+		if( meeting == null )
+			return returnList;
 		
-			System.out.println("\nMST vertices: " + mst.getNumberOfNodes() + " MST edges: " + mst.getNumberOfEdges() + " : Graph vertices: " + this.getNumberOfNodes() + " : Graph edges: " + this.getNumberOfEdges());
-			
-			while(!vertexQueue.isEmpty()) {
-				System.out.println("In vertexQueue.");
-				T v = vertexQueue.poll();
-				fromVertex = v;
-				for(T w : this.graph.get(fromVertex).keySet()){
-					toVertex = w;
-					int cost = graph.get(fromVertex).get(toVertex).getCost();
-					if(costMap.containsKey(fromVertex))
-						cost += costMap.get(fromVertex);
-					if(!mst.isVertex(toVertex)) {
-						Edge<T> e = new Edge<T>(fromVertex, toVertex, cost);
-						edgeQueue.add(e);
-						System.out.println("      "+e.toString()+" added to priority queue (minheap).");
-					}
+		for(T v = meeting; v != null; v = forwardMap.get(v)) {
+			returnList.addFirst(v);
+		}
+		for(T v = backwardMap.get(meeting); v != null; v = backwardMap.get(v)) {
+			returnList.addLast(v);
+		}
+		return returnList;
+	}
+	
+	/**
+	 * Visits every vertex of the current level of one side.
+	 * @return The first vertex found that the other side has already
+	 * reached, or null.
+	 */
+	private T expandLevel(Deque<T> queue, Map<T, T> pathMap, Map<T, T> otherPathMap) {
+		for(int level = queue.size(); level > 0; level--) {
+			T activeVertex = queue.poll();
+			for(T adjacentVertex : graph.get(activeVertex).keySet()) {
+				if(!pathMap.containsKey(adjacentVertex)) {
+					pathMap.put(adjacentVertex, activeVertex);
+					if(otherPathMap.containsKey(adjacentVertex))
+						return adjacentVertex;
+					queue.offer(adjacentVertex);
 				}
 			}
-			System.out.println("\nEdgeQueue:");
-			edgeQueue.forEach(e->System.out.println(e.toString() + " > "));
-			System.out.println();
-			do {
-				bestEdge = edgeQueue.poll();
-				System.out.println("Poll: " + bestEdge.from.toString() + " : " + bestEdge.to.toString() + " : " + String.valueOf(bestEdge.getCost()));
-			}while(mst.isVertex(bestEdge.to) && !edgeQueue.isEmpty());
-				
-			vertexQueue.add(bestEdge.to);
-			pathMap.put(bestEdge.to, bestEdge.from);
-			costMap.put(bestEdge.to, costMap.get(bestEdge.from) + this.graph.get(bestEdge.from).get(bestEdge.to).getCost());
-			mst.add(bestEdge.to);
-			System.out.println(bestEdge.to.toString());
-			mst.connect(bestEdge.from, bestEdge.to, this.graph.get(bestEdge.from).get(bestEdge.to).getCost());
-			System.out.println("Edge from " + bestEdge.from.toString() + " to " + bestEdge.to.toString() + " with weight " + costMap.get(bestEdge.to) + " polled from queue and added to graph.");
-		}
-		System.out.println("\n\n");
-		System.out.println("Vertices: " + String.valueOf(mst.graph.keySet().size()) + " Edges: " + String.valueOf(mst.edgeCount));
-		System.out.println("\n\n\n\n\n\n\n\n\n\n");
+		}
+		return null;
+	}
+
+	/**
+	 * Kruskal's algorithm; see MinimumSpanningForest. A graph that is not
+	 * connected gives a minimum spanning forest, one tree per component.
+	 * @return A new graph with every vertex of this one and the edges of
+	 * the forest.
+	 */
+	@Override
+	public UndirectedGraph<T> minimumSpanningTree() {
+		return spanningForest(null);
+	}
+	
+	/**
+	 * As minimumSpanningTree(), with Borůvka's algorithm run on the pool.
+	 */
+	public UndirectedGraph<T> parallelMinimumSpanningTree(ForkJoinPool pool) {
+		return spanningForest(pool);
+	}
+	
+	private UndirectedGraph<T> spanningForest(ForkJoinPool pool) {
+		MyUndirectedGraph<T> mst = new MyUndirectedGraph<T>();
+		ObjectIntMap<T> ids = new ObjectIntMap<T>(2 * graph.size());
+		for(T vertex : graph.keySet()) {
+			ids.put(vertex, ids.size());
+			mst.add(vertex);
+		}
+		
+		List<Edge<T>> edges = new ArrayList<Edge<T>>();
+		for(Map.Entry<T, HashMap<T, Edge<T>>> entry : graph.entrySet()) {
+			int v = ids.get(entry.getKey());
+			for(Map.Entry<T, Edge<T>> edge : entry.getValue().entrySet()) {
+				if(v < ids.get(edge.getKey()))
+					edges.add(edge.getValue());
+			}
+		}
+		int[] from = new int[edges.size()];
+		int[] to = new int[edges.size()];
+		int[] weights = new int[edges.size()];
+		for(int e = 0; e < edges.size(); e++) {
+			from[e] = ids.get(edges.get(e).from);
+			to[e] = ids.get(edges.get(e).to);
+			weights[e] = edges.get(e).getCost();
+		}
+		
+		int[] forest = (pool == null)
+				? MinimumSpanningForest.kruskal(graph.size(), from, to, weights)
+				: MinimumSpanningForest.boruvka(graph.size(), from, to, weights, pool);
+		for(int e : forest) {
+			Edge<T> edge = edges.get(e);
+			mst.connect(edge.from, edge.to, edge.getCost());
+		}
 		return mst;
 	}
 
@@ -0,0 +1,57 @@
+package alda.graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.*;
+
+public class MyUndirectedGraphTest {
+
+	private MyUndirectedGraph<Integer> graph = new MyUndirectedGraph<>();
+
+	private void testPath(int start, int end, List<Integer> path) {
+		assertEquals(Integer.valueOf(start), path.get(0));
+		assertEquals(Integer.valueOf(end), path.get(path.size() - 1));
+		for (int i = 1; i < path.size(); i++) {
+			assertTrue(graph.isConnected(path.get(i - 1), path.get(i)));
+		}
+	}
+
+	@Test
+	public void testBidirectionalSearch() {
+		Random random = new Random(7);
+		int size = 500;
+		for (int i = 0; i < size; i++) {
+			graph.add(i);
+		}
+		for (int i = 0; i < size; i++) {
+			graph.connect(random.nextInt(size), random.nextInt(size), 1);
+		}
+		for (int k = 0; k < 200; k++) {
+			int start = random.nextInt(size);
+			int end = random.nextInt(size);
+			List<Integer> expected = graph.breadthFirstSearch(start, end);
+			List<Integer> path = graph.bidirectionalSearch(start, end);
+			assertEquals(expected.size(), path.size());
+			if (!path.isEmpty()) {
+				testPath(start, end, path);
+				testPath(start, end, graph.depthFirstSearch(start, end));
+			} else {
+				assertTrue(graph.depthFirstSearch(start, end).isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testSameAndMissingVertex() {
+		graph.add(1);
+		graph.add(2);
+		assertEquals(1, graph.bidirectionalSearch(1, 1).size());
+		assertTrue(graph.bidirectionalSearch(1, 2).isEmpty());
+		assertTrue(graph.breadthFirstSearch(1, 2).isEmpty());
+		assertTrue(graph.bidirectionalSearch(1, 3).isEmpty());
+	}
+
+}
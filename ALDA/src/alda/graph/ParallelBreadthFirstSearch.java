@@ -0,0 +1,318 @@
+package alda.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous breadth-first search over the edge arrays of a
+ * FrozenUndirectedGraph, run on a ForkJoinPool. It finds the hop
+ * distance and a parent of every vertex that can be reached from the
+ * start, by vertex number; see FrozenUndirectedGraph.idOf().
+ *
+ * Each level is expanded in one of two directions. Top-down, the
+ * vertices of the frontier are shared out between the tasks and claim
+ * their unvisited neighbours with a compare-and-set on a visited bitset.
+ * Bottom-up, every vertex not yet visited looks among its own
+ * neighbours for one in the frontier and stops at the first it finds;
+ * the vertices are shared out in blocks of whole bitset words, so no
+ * two tasks ever write the same word. Bottom-up pays off in the middle
+ * levels of a low-diameter graph, where the frontier holds most of the
+ * edges left and a top-down step would mostly find its neighbours
+ * already visited. The switch is made on the edge and vertex counts of
+ * the frontier, as proposed by Beamer, Asanović and Patterson.
+ */
+public class ParallelBreadthFirstSearch {
+
+	/**
+	 * The distance and parent of a vertex that was not reached.
+	 */
+	public static final int UNREACHED = -1;
+
+	private static final int ALPHA = 14;	// bottom-up once the frontier has over 1/ALPHA of the unexplored edges
+	private static final int BETA = 24;		// top-down again once it has under 1/BETA of the vertices
+	private static final int TOP_DOWN_GRAIN = 1024;	// frontier vertices per task
+	private static final int BOTTOM_UP_GRAIN = 64;	// bitset words per task
+
+	private final int[] offsets;
+	private final int[] neighbors;
+	private final int vertexCount;
+	private final int words;
+	private final int[] distance;
+	private final int[] parent;
+	private final AtomicLongArray visited;
+	private int reached = 0;
+	private int depth = 0;
+	private int bottomUpLevels = 0;
+
+	/**
+	 * The vertices found in one level, with the sum of their degrees.
+	 */
+	private static class Level {
+
+		final int[] vertices;
+		final int count;
+		final long edges;
+
+		Level(int[] vertices, int count, long edges) {
+			this.vertices = vertices;
+			this.count = count;
+			this.edges = edges;
+		}
+
+	}
+
+	ParallelBreadthFirstSearch(int[] offsets, int[] neighbors, int start, ForkJoinPool pool) {
+		this.offsets = offsets;
+		this.neighbors = neighbors;
+		vertexCount = offsets.length - 1;
+		words = (vertexCount + 63) >>> 6;
+		distance = new int[vertexCount];
+		parent = new int[vertexCount];
+		visited = new AtomicLongArray(words);
+		Arrays.fill(distance, UNREACHED);
+		Arrays.fill(parent, UNREACHED);
+		run(start, pool);
+	}
+
+	private int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	private void run(int start, ForkJoinPool pool) {
+		distance[start] = 0;
+		parent[start] = start;
+		claim(start);
+		reached = 1;
+
+		int[] frontier = { start };
+		long[] frontierBits = null;
+		int frontierSize = 1;
+		long frontierEdges = degree(start);
+		long unexploredEdges = neighbors.length - frontierEdges;
+		boolean bottomUp = false;
+
+		for(int level = 0; frontierSize > 0; level++) {
+			if(!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+				bottomUp = true;
+				frontierBits = toBits(frontier, frontierSize);
+			} else if(bottomUp && frontierSize < vertexCount / BETA) {
+				bottomUp = false;
+				frontier = toArray(frontierBits, frontierSize);
+			}
+
+			Level next;
+			if(bottomUp) {
+				long[] nextBits = new long[words];
+				next = pool.invoke(new BottomUpTask(frontierBits, nextBits, level, 0, words));
+				frontierBits = nextBits;
+				bottomUpLevels++;
+			} else {
+				next = pool.invoke(new TopDownTask(frontier, level, 0, frontierSize));
+				frontier = next.vertices;
+			}
+			frontierSize = next.count;
+			frontierEdges = next.edges;
+			unexploredEdges -= frontierEdges;
+			reached += frontierSize;
+			if(frontierSize > 0) {
+				depth = level + 1;
+			}
+		}
+	}
+
+	/**
+	 * Marks v as visited.
+	 * @return false if it already was.
+	 */
+	private boolean claim(int v) {
+		int word = v >>> 6;
+		long bit = 1L << v;
+		for(;;) {
+			long current = visited.get(word);
+			if((current & bit) != 0) {
+				return false;
+			}
+			if(visited.compareAndSet(word, current, current | bit)) {
+				return true;
+			}
+		}
+	}
+
+	private long[] toBits(int[] frontier, int size) {
+		long[] bits = new long[words];
+		for(int i = 0; i < size; i++) {
+			bits[frontier[i] >>> 6] |= 1L << frontier[i];
+		}
+		return bits;
+	}
+
+	private int[] toArray(long[] bits, int size) {
+		int[] frontier = new int[size];
+		int count = 0;
+		for(int word = 0; word < words; word++) {
+			for(long w = bits[word]; w != 0; w &= w - 1) {
+				frontier[count++] = (word << 6) + Long.numberOfTrailingZeros(w);
+			}
+		}
+		return frontier;
+	}
+
+	/**
+	 * Expands frontier[from..to), each vertex claiming its neighbours.
+	 */
+	private class TopDownTask extends RecursiveTask<Level> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] frontier;
+		private final int level;
+		private final int from;
+		private final int to;
+
+		TopDownTask(int[] frontier, int level, int from, int to) {
+			this.frontier = frontier;
+			this.level = level;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Level compute() {
+			if(to - from > TOP_DOWN_GRAIN) {
+				int middle = (from + to) >>> 1;
+				TopDownTask upper = new TopDownTask(frontier, level, middle, to);
+				upper.fork();
+				Level lower = new TopDownTask(frontier, level, from, middle).compute();
+				Level higher = upper.join();
+				int[] vertices = Arrays.copyOf(lower.vertices, lower.count + higher.count);
+				System.arraycopy(higher.vertices, 0, vertices, lower.count, higher.count);
+				return new Level(vertices, vertices.length, lower.edges + higher.edges);
+			}
+			int[] found = new int[16];
+			int count = 0;
+			long edges = 0;
+			for(int i = from; i < to; i++) {
+				int v = frontier[i];
+				for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int w = neighbors[e];
+					if(claim(w)) {
+						distance[w] = level + 1;
+						parent[w] = v;
+						if(count == found.length) {
+							found = Arrays.copyOf(found, count * 2);
+						}
+						found[count++] = w;
+						edges += degree(w);
+					}
+				}
+			}
+			return new Level(found, count, edges);
+		}
+
+	}
+
+	/**
+	 * Lets every unvisited vertex in the bitset words [from, to) look for
+	 * a parent in the frontier.
+	 */
+	private class BottomUpTask extends RecursiveTask<Level> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] frontierBits;
+		private final long[] nextBits;
+		private final int level;
+		private final int from;
+		private final int to;
+
+		BottomUpTask(long[] frontierBits, long[] nextBits, int level, int from, int to) {
+			this.frontierBits = frontierBits;
+			this.nextBits = nextBits;
+			this.level = level;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Level compute() {
+			if(to - from > BOTTOM_UP_GRAIN) {
+				int middle = (from + to) >>> 1;
+				BottomUpTask upper = new BottomUpTask(frontierBits, nextBits, level, middle, to);
+				upper.fork();
+				Level lower = new BottomUpTask(frontierBits, nextBits, level, from, middle).compute();
+				Level higher = upper.join();
+				return new Level(null, lower.count + higher.count, lower.edges + higher.edges);
+			}
+			int count = 0;
+			long edges = 0;
+			for(int word = from; word < to; word++) {
+				long unvisited = ~visited.get(word);
+				if(word == words - 1 && (vertexCount & 63) != 0) {
+					unvisited &= (1L << vertexCount) - 1;
+				}
+				long found = 0;
+				for(; unvisited != 0; unvisited &= unvisited - 1) {
+					int v = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+					for(int e = offsets[v]; e < offsets[v + 1]; e++) {
+						int w = neighbors[e];
+						if((frontierBits[w >>> 6] & (1L << w)) != 0) {
+							distance[v] = level + 1;
+							parent[v] = w;
+							found |= 1L << v;
+							count++;
+							edges += degree(v);
+							break;
+						}
+					}
+				}
+				if(found != 0) {
+					nextBits[word] = found;
+					visited.set(word, visited.get(word) | found);
+				}
+			}
+			return new Level(null, count, edges);
+		}
+
+	}
+
+	/**
+	 * @return The hop distance of every vertex from the start, or
+	 * UNREACHED; indexed by vertex number. The array is not copied.
+	 */
+	public int[] distances() {
+		return distance;
+	}
+
+	/**
+	 * @return The vertex each vertex was reached from, the start for the
+	 * start itself, or UNREACHED; indexed by vertex number. The array is
+	 * not copied.
+	 */
+	public int[] parents() {
+		return parent;
+	}
+
+	/**
+	 * @return The number of vertices reached, the start included.
+	 */
+	public int reached() {
+		return reached;
+	}
+
+	/**
+	 * @return The largest hop distance of a vertex reached.
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	/**
+	 * @return The number of levels that were expanded bottom-up.
+	 */
+	public int bottomUpLevels() {
+		return bottomUpLevels;
+	}
+
+}
@@ -0,0 +1,120 @@
+package alda.graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.*;
+
+public class ShortestPathTest {
+
+	private MyUndirectedGraph<String> graph = new MyUndirectedGraph<>();
+
+	// Grafen från testMinimumSpanningTreeFromBook i UndirectedGraphTest.
+	private void createBookGraph() {
+		for (int node = 1; node <= 7; node++) {
+			graph.add("V" + node);
+		}
+		graph.connect("V1", "V2", 2);
+		graph.connect("V1", "V3", 4);
+		graph.connect("V1", "V4", 1);
+		graph.connect("V2", "V4", 3);
+		graph.connect("V2", "V5", 10);
+		graph.connect("V3", "V4", 2);
+		graph.connect("V3", "V6", 5);
+		graph.connect("V4", "V5", 7);
+		graph.connect("V4", "V6", 8);
+		graph.connect("V4", "V7", 4);
+		graph.connect("V5", "V7", 6);
+		graph.connect("V6", "V7", 1);
+	}
+
+	private void testShortestPaths(UndirectedGraph<String> g) {
+		assertEquals(Arrays.asList("V1", "V4", "V7", "V6"), g.shortestPath("V1", "V6"));
+		assertEquals(Arrays.asList("V6", "V7", "V4", "V1"), g.shortestPath("V6", "V1"));
+		assertEquals(Arrays.asList("V2"), g.shortestPath("V2", "V2"));
+		assertTrue(g.shortestPath("V1", "V9").isEmpty());
+
+		Map<String, Long> distances = g.shortestDistances("V1");
+		assertEquals(7, distances.size());
+		assertEquals(Long.valueOf(0), distances.get("V1"));
+		assertEquals(Long.valueOf(3), distances.get("V3"));
+		assertEquals(Long.valueOf(6), distances.get("V6"));
+		assertEquals(Long.valueOf(5), distances.get("V7"));
+	}
+
+	@Test
+	public void testShortestPath() {
+		createBookGraph();
+		testShortestPaths(graph);
+		graph.add("V8");
+		assertTrue(graph.shortestPath("V1", "V8").isEmpty());
+		assertFalse(graph.shortestDistances("V1").containsKey("V8"));
+	}
+
+	@Test
+	public void testShortestPathFrozen() {
+		createBookGraph();
+		testShortestPaths(graph.freeze());
+	}
+
+	@Test
+	public void testAStarOnGrid() {
+		// 20 x 20 rutnät där varje båge kostar 1; avståndet i x plus avståndet
+		// i y överskattar aldrig vad som återstår.
+		MyUndirectedGraph<Integer> grid = new MyUndirectedGraph<>();
+		int side = 20;
+		for (int i = 0; i < side * side; i++) {
+			grid.add(i);
+		}
+		for (int row = 0; row < side; row++) {
+			for (int column = 0; column < side; column++) {
+				if (column + 1 < side) {
+					grid.connect(row * side + column, row * side + column + 1, 1);
+				}
+				if (row + 1 < side) {
+					grid.connect(row * side + column, (row + 1) * side + column, 1);
+				}
+			}
+		}
+		int end = side * side - 1;
+		assertEquals(2 * side - 1, grid.shortestPath(0, end, v -> (side - 1 - v / side) + (side - 1 - v % side)).size());
+		assertEquals(2 * side - 1, grid.freeze().shortestPath(0, end, v -> (side - 1 - v / side) + (side - 1 - v % side)).size());
+		assertEquals(2 * side - 1, grid.shortestPath(0, end).size());
+	}
+
+	@Test
+	public void testIndexedMinHeap() {
+		IndexedMinHeap heap = new IndexedMinHeap(5);
+		assertTrue(heap.offer(3, 30));
+		assertTrue(heap.offer(1, 10));
+		assertTrue(heap.offer(4, 40));
+		assertFalse(heap.offer(4, 50));
+		assertTrue(heap.offer(4, 5));
+		assertEquals(3, heap.size());
+		assertEquals(5, heap.peekKey());
+		assertEquals(4, heap.poll());
+		assertEquals(1, heap.poll());
+		assertFalse(heap.contains(1));
+		assertTrue(heap.offer(1, 40));
+		assertEquals(3, heap.poll());
+		assertEquals(1, heap.poll());
+		assertTrue(heap.isEmpty());
+	}
+
+	@Test
+	public void testIndexedMinHeapGrows() {
+		IndexedMinHeap heap = new IndexedMinHeap(2);
+		heap.offer(1, 10);
+		heap.ensureCapacity(6);
+		assertTrue(heap.contains(1));
+		assertFalse(heap.contains(5));
+		heap.offer(5, 5);
+		heap.offer(0, 20);
+		assertEquals(5, heap.poll());
+		assertEquals(1, heap.poll());
+		assertEquals(0, heap.poll());
+	}
+
+}
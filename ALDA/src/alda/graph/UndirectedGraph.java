@@ -2,6 +2,8 @@
 package alda.graph;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
 
 public interface UndirectedGraph<T> {
 
@@ -100,6 +102,41 @@ public interface UndirectedGraph<T> {
 	 */
 	List<T> breadthFirstSearch(T start, T end);
 
+	/**
+	 * Hittar den billigaste vägen mellan två noder med Dijkstras algoritm.
+	 * Sökningen avbryts så snart slutnoden är färdigbehandlad.
+	 * 
+	 * @param start
+	 *            startnoden.
+	 * @param end
+	 *            slutnoden.
+	 * @return en lista över alla noder på den billigaste vägen mellan start-
+	 *         och slutnoden. Om ingen väg finns är listan tom.
+	 */
+	List<T> shortestPath(T start, T end);
+
+	/**
+	 * Som shortestPath(start, end), men med A*: noderna behandlas i ordning
+	 * efter kostnaden hittills plus heuristikens uppskattning av vad som
+	 * återstår till slutnoden.
+	 * 
+	 * @param heuristic
+	 *            uppskattar kostnaden från en nod till slutnoden. Den får
+	 *            aldrig överskatta kostnaden, annars kan vägen bli dyrare än
+	 *            den billigaste.
+	 */
+	List<T> shortestPath(T start, T end, ToIntFunction<? super T> heuristic);
+
+	/**
+	 * Kostnaden för den billigaste vägen från startnoden till varje nod som
+	 * går att nå från den, startnoden själv inräknad med kostnaden 0.
+	 * 
+	 * @param start
+	 *            startnoden.
+	 * @return kostnaden per nod; tom om startnoden inte finns.
+	 */
+	Map<T, Long> shortestDistances(T start);
+
 	/**
 	 * Returnerar en ny graf som utgär ett minimalt spännande träd till grafen.
 	 * Ni kan förutsätta att alla noder ingär i samma graf.
@@ -0,0 +1,67 @@
+package alda.graph;
+
+/**
+ * Disjoint sets over the ints 0..n-1, in one parent array. find() halves
+ * the path it walks, and union() hangs the lower-ranked root under the
+ * other, so any sequence of operations runs in close to constant time
+ * per operation.
+ */
+public class UnionFind {
+
+	private final int[] parent;
+	private final byte[] rank;
+	private int count;
+
+	/**
+	 * @param n Every int 0..n-1 starts in a set of its own.
+	 */
+	public UnionFind(int n) {
+		parent = new int[n];
+		rank = new byte[n];
+		count = n;
+		for(int i = 0; i < n; i++) {
+			parent[i] = i;
+		}
+	}
+
+	/**
+	 * @return The root of the set holding x.
+	 */
+	public int find(int x) {
+		while(parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Merges the sets holding x and y.
+	 * @return false if they already were the same set.
+	 */
+	public boolean union(int x, int y) {
+		int rootX = find(x);
+		int rootY = find(y);
+		if(rootX == rootY) {
+			return false;
+		}
+		if(rank[rootX] < rank[rootY]) {
+			parent[rootX] = rootY;
+		} else if(rank[rootX] > rank[rootY]) {
+			parent[rootY] = rootX;
+		} else {
+			parent[rootY] = rootX;
+			rank[rootX]++;
+		}
+		count--;
+		return true;
+	}
+
+	/**
+	 * @return The number of sets.
+	 */
+	public int count() {
+		return count;
+	}
+
+}
@@ -0,0 +1,150 @@
+package alda.hash;
+
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton over a word list. Once built, it finds every
+ * occurrence of every word in a line of text in a single left-to-right
+ * pass, so the time to scan a line depends on its length and the number
+ * of matches, not on the size of the dictionary.
+ *
+ * The goto function is a trie kept in flat arrays (character, first
+ * child, next sibling per node, as in WordTrie). Each node also has a
+ * failure link to the longest proper suffix that is a trie node, and an
+ * output link to the nearest such suffix that is a whole word.
+ *
+ * An automaton is immutable after construction and can be shared by any
+ * number of threads.
+ */
+public class AhoCorasick {
+
+	/**
+	 * Receives the matches found by scan().
+	 */
+	public interface MatchListener {
+
+		/**
+		 * @param start The index of the first character of the match.
+		 * @param end The index of the last character of the match.
+		 */
+		void match(int start, int end);
+
+	}
+
+	private static final int ROOT = 0;
+	private static final int NONE = -1;
+	private static final int INITIAL_NODES = 1024;
+
+	private char[] labels = new char[INITIAL_NODES];
+	private int[] firstChild = new int[INITIAL_NODES];	// 0: no children, the root is never a child
+	private int[] nextSibling = new int[INITIAL_NODES];
+	private int[] wordLength = new int[INITIAL_NODES];	// 0: not the end of a word
+	private int[] failure;
+	private int[] output;
+	private int nodeCount = 1;
+
+	/**
+	 * @param words The dictionary, in the case the scanned text will use.
+	 * @param minimumLength Words shorter than this are left out.
+	 */
+	public AhoCorasick(Iterable<? extends CharSequence> words, int minimumLength) {
+		for(CharSequence word : words) {
+			if(word.length() >= minimumLength && word.length() > 0) {
+				add(word);
+			}
+		}
+		labels = Arrays.copyOf(labels, nodeCount);
+		firstChild = Arrays.copyOf(firstChild, nodeCount);
+		nextSibling = Arrays.copyOf(nextSibling, nodeCount);
+		wordLength = Arrays.copyOf(wordLength, nodeCount);
+		buildLinks();
+	}
+
+	private int child(int node, char c) {
+		for(int child = firstChild[node]; child != ROOT; child = nextSibling[child]) {
+			if(labels[child] == c) {
+				return child;
+			}
+		}
+		return NONE;
+	}
+
+	private void add(CharSequence word) {
+		int node = ROOT;
+		for(int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			int next = child(node, c);
+			if(next == NONE) {
+				if(nodeCount == labels.length) {
+					int capacity = labels.length * 2;
+					labels = Arrays.copyOf(labels, capacity);
+					firstChild = Arrays.copyOf(firstChild, capacity);
+					nextSibling = Arrays.copyOf(nextSibling, capacity);
+					wordLength = Arrays.copyOf(wordLength, capacity);
+				}
+				next = nodeCount++;
+				labels[next] = c;
+				nextSibling[next] = firstChild[node];
+				firstChild[node] = next;
+			}
+			node = next;
+		}
+		wordLength[node] = word.length();
+	}
+
+	/**
+	 * Sets the failure and output links breadth-first, so that the links
+	 * of every shallower node are final before they are followed.
+	 */
+	private void buildLinks() {
+		failure = new int[nodeCount];
+		output = new int[nodeCount];
+		Arrays.fill(output, NONE);
+		int[] queue = new int[nodeCount];
+		int head = 0;
+		int tail = 0;
+		for(int child = firstChild[ROOT]; child != ROOT; child = nextSibling[child]) {
+			failure[child] = ROOT;
+			queue[tail++] = child;
+		}
+		while(head < tail) {
+			int node = queue[head++];
+			for(int child = firstChild[node]; child != ROOT; child = nextSibling[child]) {
+				failure[child] = transition(failure[node], labels[child]);
+				int suffix = failure[child];
+				output[child] = wordLength[suffix] > 0 ? suffix : output[suffix];
+				queue[tail++] = child;
+			}
+		}
+	}
+
+	/**
+	 * Follows failure links from node until c can be consumed.
+	 */
+	private int transition(int node, char c) {
+		for(;;) {
+			int next = child(node, c);
+			if(next != NONE) {
+				return next;
+			}
+			if(node == ROOT) {
+				return ROOT;
+			}
+			node = failure[node];
+		}
+	}
+
+	/**
+	 * Reports every dictionary word occurring in text[0..length).
+	 */
+	public void scan(char[] text, int length, MatchListener listener) {
+		int node = ROOT;
+		for(int i = 0; i < length; i++) {
+			node = transition(node, text[i]);
+			for(int match = wordLength[node] > 0 ? node : output[node]; match != NONE; match = output[match]) {
+				listener.match(i - wordLength[match] + 1, i);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.*;
+
+public class AhoCorasickTest {
+
+	/**
+	 * @return Every match as "start-end:word", in the order reported.
+	 */
+	private List<String> scan(AhoCorasick automaton, String text) {
+		List<String> matches = new ArrayList<>();
+		char[] chars = text.toCharArray();
+		automaton.scan(chars, chars.length, (start, end) -> matches.add(start + "-" + end + ":" + text.substring(start, end + 1)));
+		return matches;
+	}
+
+	@Test
+	public void testOverlappingWords() {
+		// Standardexemplet: "she" har en utlänk till "he", och "hers" delar början med "he".
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"), 1);
+		assertEquals(Arrays.asList("1-3:she", "2-3:he", "2-5:hers"), scan(automaton, "ushers"));
+		assertEquals(Arrays.asList("0-2:his", "2-4:she", "3-4:he"), scan(automaton, "hishe"));
+	}
+
+	@Test
+	public void testOutputLinkChain() {
+		// Varje nod i kedjan a -> aa -> aaa är ett ord, så alla suffix rapporteras.
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("a", "aa", "aaa"), 1);
+		List<String> matches = scan(automaton, "aaaa");
+		assertEquals(Arrays.asList("0-0:a", "0-1:aa", "1-1:a", "0-2:aaa", "1-2:aa", "2-2:a",
+				"1-3:aaa", "2-3:aa", "3-3:a"), matches);
+	}
+
+	@Test
+	public void testFailureLinkChain() {
+		// Efter "abcd" misslyckas 'x', och automaten måste falla tillbaka via "bcd" och "cd".
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("abcde", "bcdx", "cdy"), 1);
+		assertEquals(Arrays.asList("1-4:bcdx"), scan(automaton, "abcdx"));
+		assertEquals(Arrays.asList("2-4:cdy"), scan(automaton, "abcdy"));
+		assertEquals(Arrays.asList("0-4:abcde"), scan(automaton, "abcde"));
+	}
+
+	@Test
+	public void testMinimumLength() {
+		AhoCorasick automaton = new AhoCorasick(Arrays.asList("he", "she", "hers", ""), 3);
+		assertEquals(Arrays.asList("1-3:she", "2-5:hers"), scan(automaton, "ushers"));
+		assertTrue(scan(automaton, "").isEmpty());
+	}
+
+	@Test
+	public void testDiagonalEndingOnRowThree() {
+		// Ordet går från (0:0) till (3:3); skannern hittade det inte förut när det slutade på rad 3.
+		char[][] grid = {
+				"WXYZ".toCharArray(),
+				"QOQQ".toCharArray(),
+				"QQRQ".toCharArray(),
+				"QQQD".toCharArray() };
+		WordSearchPuzzle puzzle = new WordSearchPuzzle();
+		puzzle.loadWords(Arrays.asList("word", "zyxw"));
+		for (boolean useAutomaton : new boolean[] { false, true }) {
+			List<String> found = new ArrayList<>();
+			for (WordSearchPuzzle.Word word : puzzle.withGrid(grid).solve(useAutomaton, false)) {
+				found.add(word.toString());
+			}
+			found.sort(null);
+			assertEquals(Arrays.asList("WORD (0:0) - (3:3)", "ZYXW (0:3) - (0:0)"), found);
+		}
+	}
+
+}
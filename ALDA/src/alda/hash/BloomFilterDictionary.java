@@ -0,0 +1,113 @@
+package alda.hash;
+
+/**
+ * Blocked Bloom filter in front of another WordDictionary. Most lookups
+ * from the grid scanners are misses, and the filter answers nearly all of
+ * them from a compact bit array without touching the dictionary behind
+ * it; only candidates that may be words are passed on.
+ *
+ * Every word sets its bits within a single 512-bit block, so a lookup
+ * reads one cache line. The block and the bits are derived from the
+ * String.hashCode() of the word, which the scanners already keep up to
+ * date, so the filter never has to look at the characters themselves.
+ */
+public class BloomFilterDictionary implements WordDictionary {
+
+	private static final int BLOCK_BITS = 512;
+	private static final int BLOCK_LONGS = BLOCK_BITS / Long.SIZE;
+	private static final int MAXIMUM_HASHES = 16;
+
+	private final WordDictionary dictionary;
+	private final long[] bits;
+	private final int blockMask;
+	private final int hashes;
+
+	/**
+	 * @param words The words of the dictionary.
+	 * @param expectedSize The number of words.
+	 * @param falsePositiveRate The fraction of absent words the filter
+	 * should let through to the dictionary, for instance 0.01.
+	 * @param dictionary Answers the lookups the filter lets through.
+	 */
+	public BloomFilterDictionary(Iterable<? extends CharSequence> words, int expectedSize, double falsePositiveRate, WordDictionary dictionary) {
+		if(falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("The false positive rate must be between 0 and 1.");
+		}
+		int n = Math.max(1, expectedSize);
+		double bitsPerWord = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		long blocks = 1;
+		while(blocks * BLOCK_BITS < n * bitsPerWord && blocks < (1 << 24)) {
+			blocks <<= 1;
+		}
+		this.dictionary = dictionary;
+		this.bits = new long[(int) blocks * BLOCK_LONGS];
+		this.blockMask = (int) blocks - 1;
+		this.hashes = (int) Math.max(1, Math.min(MAXIMUM_HASHES, Math.round(bitsPerWord * Math.log(2))));
+		for(CharSequence word : words) {
+			add(hashOf(word));
+		}
+	}
+
+	private static int hashOf(CharSequence word) {
+		int h = 0;
+		for(int i = 0; i < word.length(); i++) {
+			h = 31 * h + word.charAt(i);
+		}
+		return h;
+	}
+
+	/**
+	 * Spreads the 32-bit String hash over 64 bits; the low half picks
+	 * the block, the high half the bits within it.
+	 */
+	private static long mix(int hash) {
+		long x = hash * 0x9E3779B97F4A7C15L;
+		return x ^ (x >>> 29);
+	}
+
+	private void add(int hash) {
+		long x = mix(hash);
+		int block = ((int) x & blockMask) * BLOCK_LONGS;
+		int h1 = (int) (x >>> 32);
+		int h2 = (int) (x >>> 23) | 1;
+		for(int i = 0; i < hashes; i++, h1 += h2) {
+			int bit = h1 >>> 23;
+			bits[block + (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * @return false if the word is certainly not in the dictionary.
+	 */
+	public boolean mightContain(int hash) {
+		long x = mix(hash);
+		int block = ((int) x & blockMask) * BLOCK_LONGS;
+		int h1 = (int) (x >>> 32);
+		int h2 = (int) (x >>> 23) | 1;
+		for(int i = 0; i < hashes; i++, h1 += h2) {
+			int bit = h1 >>> 23;
+			if((bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return The size of the bit array in bytes.
+	 */
+	public int sizeInBytes() {
+		return bits.length * Long.BYTES;
+	}
+
+	@Override
+	public boolean contains(CharSequence word) {
+		return mightContain(hashOf(word)) && dictionary.contains(word);
+	}
+
+	@Override
+	public boolean contains(int hash, char[] chars, int offset, int length) {
+		return mightContain(hash) && dictionary.contains(hash, chars, offset, length);
+	}
+
+}
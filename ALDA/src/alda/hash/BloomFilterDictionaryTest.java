@@ -0,0 +1,46 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class BloomFilterDictionaryTest {
+
+	private static final int WORDS = 10000;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	private final Set<String> words = new HashSet<>();
+	private final BloomFilterDictionary filter;
+	private int lookups = 0;
+
+	public BloomFilterDictionaryTest() {
+		for (int i = 0; i < WORDS; i++) {
+			words.add("word" + i);
+		}
+		filter = new BloomFilterDictionary(words, words.size(), FALSE_POSITIVE_RATE, word -> {
+			lookups++;
+			return words.contains(word.toString());
+		});
+	}
+
+	@Test
+	public void testNoFalseNegatives() {
+		for (String word : words) {
+			assertTrue(filter.contains(word));
+			char[] chars = word.toCharArray();
+			assertTrue(filter.contains(chars, 0, chars.length));
+		}
+	}
+
+	@Test
+	public void testMissesAreFiltered() {
+		for (int i = 0; i < WORDS; i++) {
+			assertFalse(filter.contains("other" + i));
+		}
+		assertTrue("Too many false positives: " + lookups, lookups < WORDS * FALSE_POSITIVE_RATE * 2);
+	}
+
+}
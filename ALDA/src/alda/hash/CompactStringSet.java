@@ -0,0 +1,332 @@
+package alda.hash;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of strings packed into a single arena. The characters of all words
+ * are stored back to back in one array, one byte per character as long as
+ * every word is Latin-1 and two bytes per character otherwise; the hash
+ * table only holds word numbers and cached hash codes. A dictionary thus
+ * takes little more than its raw text plus two ints per slot, and the
+ * garbage collector sees a handful of arrays instead of one String per
+ * word.
+ *
+ * The table uses linear probing, hashed like MyHashMap. Lookups can be
+ * made with a slice of a char array, so the grid scanners never build a
+ * String for a candidate. Words are never removed.
+ */
+public class CompactStringSet implements WordDictionary, Iterable<String> {
+
+	private static final int DEFAULT_WORDS = 16;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int EMPTY = 0;
+
+	private byte[] latin1 = new byte[64];	// the arena while every character fits in a byte
+	private char[] utf16;					// the arena once one does not; latin1 is then null
+	private int arenaLength = 0;
+	private int[] starts = new int[DEFAULT_WORDS + 1];	// word w is arena[starts[w]..starts[w + 1])
+	private int size = 0;
+	private int longestWord = 0;
+
+	private int[] slots;		// word number + 1, or EMPTY
+	private int[] hashes;
+	private int mask;
+	private int threshold;
+
+	public CompactStringSet() {
+		this(DEFAULT_WORDS);
+	}
+
+	/**
+	 * @param expectedSize The number of words the table is sized for.
+	 */
+	public CompactStringSet(int expectedSize) {
+		int buckets = 2;
+		while(buckets * LOAD_FACTOR < expectedSize) {
+			buckets <<= 1;
+		}
+		allocate(buckets);
+	}
+
+	/**
+	 * Reads a file with one word per line. The lines are counted first,
+	 * so the table is allocated only once.
+	 * @param filename The path to the word list.
+	 */
+	public static CompactStringSet fromLines(String filename) throws IOException {
+		Path path = Paths.get(filename);
+		CompactStringSet set = new CompactStringSet(MyHashMap.countLines(path));
+		try(BufferedReader inputBuffer = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			for(String entry = inputBuffer.readLine(); entry != null; entry = inputBuffer.readLine()) {
+				set.add(entry);
+			}
+		}
+		set.trimToSize();
+		return set;
+	}
+
+	private void allocate(int buckets) {
+		slots = new int[buckets];
+		hashes = new int[buckets];
+		mask = buckets - 1;
+		threshold = (int) (buckets * LOAD_FACTOR);
+	}
+
+	private static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static int hashOf(CharSequence word) {
+		int h = 0;
+		for(int i = 0; i < word.length(); i++) {
+			h = 31 * h + word.charAt(i);
+		}
+		return h;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The length of the longest word in the set.
+	 */
+	public int longestWord() {
+		return longestWord;
+	}
+
+	/**
+	 * @return The number of bytes held by the arena and the table.
+	 */
+	public long sizeInBytes() {
+		long arena = (latin1 != null) ? latin1.length : 2L * utf16.length;
+		return arena + 4L * starts.length + 4L * slots.length + 4L * hashes.length;
+	}
+
+	private char charAt(int index) {
+		return (latin1 != null) ? (char) (latin1[index] & 0xFF) : utf16[index];
+	}
+
+	/**
+	 * Adds the word unless it is already present.
+	 * @return true if the word was added.
+	 */
+	public boolean add(CharSequence word) {
+		int before = size;
+		intern(word);
+		return size > before;
+	}
+
+	/**
+	 * Adds the word unless it is already present.
+	 * @return The number of the word, whether it was added or not.
+	 */
+	public int intern(CharSequence word) {
+		int hash = spread(hashOf(word));
+		int index = hash & mask;
+		for(int w; (w = slots[index]) != EMPTY; index = (index + 1) & mask) {
+			if(hashes[index] == hash && matches(w - 1, word)) {
+				return w - 1;
+			}
+		}
+		append(word);
+		slots[index] = size;
+		hashes[index] = hash;
+		if(size > threshold) {
+			grow();
+		}
+		return size - 1;
+	}
+
+	private void append(CharSequence word) {
+		int length = word.length();
+		if(latin1 != null) {
+			for(int i = 0; i < length; i++) {
+				if(word.charAt(i) > 0xFF) {
+					widen();
+					break;
+				}
+			}
+		}
+		int capacity = (latin1 != null) ? latin1.length : utf16.length;
+		if(arenaLength + length > capacity) {
+			capacity = Math.max(capacity * 2, arenaLength + length);
+			if(latin1 != null) {
+				latin1 = Arrays.copyOf(latin1, capacity);
+			} else {
+				utf16 = Arrays.copyOf(utf16, capacity);
+			}
+		}
+		for(int i = 0; i < length; i++) {
+			if(latin1 != null) {
+				latin1[arenaLength + i] = (byte) word.charAt(i);
+			} else {
+				utf16[arenaLength + i] = word.charAt(i);
+			}
+		}
+		if(size + 2 > starts.length) {
+			starts = Arrays.copyOf(starts, starts.length * 2);
+		}
+		starts[size] = arenaLength;
+		arenaLength += length;
+		starts[++size] = arenaLength;
+		longestWord = Math.max(longestWord, length);
+	}
+
+	/**
+	 * Switches the arena to two bytes per character.
+	 */
+	private void widen() {
+		utf16 = new char[latin1.length];
+		for(int i = 0; i < arenaLength; i++) {
+			utf16[i] = (char) (latin1[i] & 0xFF);
+		}
+		latin1 = null;
+	}
+
+	private void grow() {
+		int[] oldSlots = slots;
+		int[] oldHashes = hashes;
+		allocate(slots.length * 2);
+		for(int i = 0; i < oldSlots.length; i++) {
+			if(oldSlots[i] != EMPTY) {
+				int index = oldHashes[i] & mask;
+				while(slots[index] != EMPTY) {
+					index = (index + 1) & mask;
+				}
+				slots[index] = oldSlots[i];
+				hashes[index] = oldHashes[i];
+			}
+		}
+	}
+
+	/**
+	 * Shrinks the arena and the word offsets to the space in use.
+	 */
+	public void trimToSize() {
+		if(latin1 != null) {
+			latin1 = Arrays.copyOf(latin1, arenaLength);
+		} else {
+			utf16 = Arrays.copyOf(utf16, arenaLength);
+		}
+		starts = Arrays.copyOf(starts, size + 1);
+	}
+
+	private boolean matches(int word, CharSequence candidate) {
+		int start = starts[word];
+		int length = starts[word + 1] - start;
+		if(length != candidate.length()) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(charAt(start + i) != candidate.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean matches(int word, char[] chars, int offset, int length) {
+		int start = starts[word];
+		if(starts[word + 1] - start != length) {
+			return false;
+		}
+		if(latin1 != null) {
+			for(int i = 0; i < length; i++) {
+				if((latin1[start + i] & 0xFF) != chars[offset + i]) {
+					return false;
+				}
+			}
+		} else {
+			for(int i = 0; i < length; i++) {
+				if(utf16[start + i] != chars[offset + i]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean contains(CharSequence word) {
+		int hash = spread(hashOf(word));
+		for(int index = hash & mask, w; (w = slots[index]) != EMPTY; index = (index + 1) & mask) {
+			if(hashes[index] == hash && matches(w - 1, word)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(int hash, char[] chars, int offset, int length) {
+		hash = spread(hash);
+		for(int index = hash & mask, w; (w = slots[index]) != EMPTY; index = (index + 1) & mask) {
+			if(hashes[index] == hash && matches(w - 1, chars, offset, length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The word with the given number, in the order the words
+	 * were added; a new String is created on every call.
+	 */
+	public String get(int word) {
+		if(word < 0 || word >= size) {
+			throw new NoSuchElementException("No word " + word + ".");
+		}
+		int start = starts[word];
+		int length = starts[word + 1] - start;
+		if(latin1 != null) {
+			return new String(latin1, start, length, StandardCharsets.ISO_8859_1);
+		}
+		return new String(utf16, start, length);
+	}
+
+	/**
+	 * @return The length of the word with the given number.
+	 */
+	public int length(int word) {
+		if(word < 0 || word >= size) {
+			throw new NoSuchElementException("No word " + word + ".");
+		}
+		return starts[word + 1] - starts[word];
+	}
+
+	/**
+	 * Iterates over the words in the order they were added, creating
+	 * each String as it is returned.
+	 */
+	@Override
+	public Iterator<String> iterator() {
+		return new Iterator<String>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public String next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return get(next++);
+			}
+
+		};
+	}
+
+}
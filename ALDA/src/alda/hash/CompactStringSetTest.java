@@ -0,0 +1,65 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CompactStringSetTest {
+
+	private CompactStringSet set = new CompactStringSet(2);
+
+	@Test
+	public void testAddAndContains() {
+		assertTrue(set.add("apple"));
+		assertTrue(set.add("pear"));
+		assertFalse(set.add("apple"));
+		assertEquals(2, set.size());
+		assertTrue(set.contains("pear"));
+		assertFalse(set.contains("pea"));
+		char[] chars = "xxpearxx".toCharArray();
+		assertTrue(set.contains(chars, 2, 4));
+		assertFalse(set.contains(chars, 2, 5));
+	}
+
+	@Test
+	public void testIntern() {
+		assertEquals(0, set.intern("apple"));
+		assertEquals(1, set.intern("pear"));
+		assertEquals(0, set.intern("apple"));
+		assertEquals(4, set.length(1));
+		assertEquals("pear", set.get(1));
+	}
+
+	@Test
+	public void testGrowAndIterate() {
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			words.add("word" + i);
+			set.add("word" + i);
+		}
+		set.trimToSize();
+		for (String word : words) {
+			assertTrue(set.contains(word));
+		}
+		List<String> iterated = new ArrayList<>();
+		for (String word : set) {
+			iterated.add(word);
+		}
+		assertEquals(words, iterated);
+	}
+
+	@Test
+	public void testWideCharacters() {
+		set.add("öl");
+		set.add("ąb");
+		assertTrue(set.contains("öl"));
+		assertTrue(set.contains("ąb"));
+		assertFalse(set.contains("ab"));
+		assertEquals("öl", set.get(0));
+		assertEquals("ąb", set.get(1));
+	}
+
+}
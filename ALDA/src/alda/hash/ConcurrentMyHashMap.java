@@ -0,0 +1,520 @@
+package alda.hash;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Thread-safe variant of MyHashMap for dictionaries that are read by many
+ * threads while a few threads add entries.
+ *
+ * Reads never lock: they follow volatile links from the bucket head to
+ * the key. Writes to an empty bucket are a single compare-and-set, and
+ * writes to an occupied bucket lock only that bucket's first entry, so
+ * writers to different buckets do not contend.
+ *
+ * Resizing is cooperative. The table is split into strides that threads
+ * claim one at a time; each moved bucket is replaced by a forwarding
+ * entry that sends readers on to the new table, and any writer that runs
+ * into one helps move the remaining strides instead of waiting.
+ *
+ * WordSearchPuzzle uses it for a dictionary that is loaded by several
+ * threads at once and can be added to while grids are being solved.
+ *
+ * Null keys are not supported; null values are.
+ */
+public class ConcurrentMyHashMap<K,V> {
+
+	private static final int DEFAULT_BUCKETS = 16;
+	private static final int MAXIMUM_BUCKETS = 1 << 30;
+	private static final int TRANSFER_STRIDE = 16;
+	private static final int MOVED = -1;
+	private static final int HASH_BITS = Integer.MAX_VALUE;
+
+	private static class Node<K,V> {
+
+		final int hash;
+		final K key;
+		volatile V value;
+		volatile Node<K,V> next;
+
+		public Node(int hash, K key, V value, Node<K,V> next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+
+	}
+
+	/**
+	 * The bucket array, together with the resize that replaces it. Each
+	 * table is resized at most once, so a thread holding on to an outdated
+	 * table can never start a second resize of it.
+	 */
+	private static class Table<K,V> {
+
+		final AtomicReferenceArray<Node<K,V>> bins;
+		final AtomicReference<Resize<K,V>> resize = new AtomicReference<>();
+
+		public Table(int buckets) {
+			bins = new AtomicReferenceArray<>(buckets);
+		}
+
+		int indexFor(int hash) {
+			return hash & (bins.length() - 1);
+		}
+
+	}
+
+	/**
+	 * Placed in a bucket of the old table once its entries have been
+	 * copied into the new table.
+	 */
+	private static class ForwardingNode<K,V> extends Node<K,V> {
+
+		final Resize<K,V> resize;
+
+		public ForwardingNode(Resize<K,V> resize) {
+			super(MOVED, null, null, null);
+			this.resize = resize;
+		}
+
+	}
+
+	/**
+	 * Bookkeeping for one resize: the next stride to hand out and the
+	 * number of buckets still to be moved.
+	 */
+	private static class Resize<K,V> {
+
+		final Table<K,V> oldTable;
+		final Table<K,V> newTable;
+		final ForwardingNode<K,V> forward;
+		final AtomicInteger transferIndex = new AtomicInteger();
+		final AtomicInteger remaining;
+
+		public Resize(Table<K,V> oldTable) {
+			this.oldTable = oldTable;
+			this.newTable = new Table<>(oldTable.bins.length() * 2);
+			this.forward = new ForwardingNode<>(this);
+			this.remaining = new AtomicInteger(oldTable.bins.length());
+		}
+
+	}
+
+	private volatile Table<K,V> table;
+	private final LongAdder count = new LongAdder();
+	private Set<K> keySet;
+
+	public ConcurrentMyHashMap() {
+		this(DEFAULT_BUCKETS);
+	}
+
+	public ConcurrentMyHashMap(int i) {
+		int n = 2;
+		while(n < i && n < MAXIMUM_BUCKETS) {
+			n <<= 1;
+		}
+		table = new Table<>(n);
+	}
+
+	/**
+	 * Reads a file with one key per line into a new map, mapping every
+	 * key to the same value. The lines are split between the threads of
+	 * a parallel stream, which all put into the map at once.
+	 * @param filename The path to the file.
+	 * @param value The value to store for every key, often null.
+	 */
+	public static <V> ConcurrentMyHashMap<String,V> fromLines(String filename, V value) throws IOException {
+		ConcurrentMyHashMap<String,V> map = new ConcurrentMyHashMap<>();
+		try(Stream<String> lines = Files.lines(Paths.get(filename), StandardCharsets.UTF_8)) {
+			lines.parallel().forEach(line -> map.put(line, value));
+		}
+		return map;
+	}
+
+	/**
+	 * Re-hashes the incoming hash code in the same way as MyHashMap, and
+	 * clears the sign bit, which is reserved for forwarding entries.
+	 */
+	private static int rehash(int i) {
+		i *= 0x9E3779B9;
+		return (i ^ (i >>> 16)) & HASH_BITS;
+	}
+
+
+	public int size() {
+		long n = count.sum();
+		return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) n;
+	}
+
+
+	public boolean isEmpty() {
+		return count.sum() <= 0;
+	}
+
+	/**
+	 * Lock-free lookup; follows forwarding entries into newer tables.
+	 * @return The node holding the key, or null.
+	 */
+	private Node<K,V> findNode(Object key) {
+		if(key == null) {
+			return null;
+		}
+		int hash = rehash(key.hashCode());
+		Table<K,V> tab = table;
+		for(;;) {
+			Node<K,V> e = tab.bins.get(tab.indexFor(hash));
+			if(e == null) {
+				return null;
+			}
+			if(e.hash == MOVED) {
+				tab = ((ForwardingNode<K,V>) e).resize.newTable;
+				continue;
+			}
+			for(; e != null; e = e.next) {
+				if(e.hash == hash && (e.key == key || e.key.equals(key))) {
+					return e;
+				}
+			}
+			return null;
+		}
+	}
+
+
+	public boolean containsKey(Object key) {
+		return findNode(key) != null;
+	}
+
+
+	/**
+	 * Looks up a String key given as a slice of a char array, without
+	 * creating the String, as MyHashMap.containsChars() does.
+	 * @param hash The String.hashCode() of the slice.
+	 */
+	boolean containsChars(int hash, char[] chars, int offset, int length) {
+		hash = rehash(hash);
+		Table<K,V> tab = table;
+		for(;;) {
+			Node<K,V> e = tab.bins.get(tab.indexFor(hash));
+			if(e == null) {
+				return false;
+			}
+			if(e.hash == MOVED) {
+				tab = ((ForwardingNode<K,V>) e).resize.newTable;
+				continue;
+			}
+			for(; e != null; e = e.next) {
+				if(e.hash == hash && e.key instanceof String && regionMatches((String) e.key, chars, offset, length)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static boolean regionMatches(String key, char[] chars, int offset, int length) {
+		if(key.length() != length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(key.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	public V get(K key) {
+		Node<K,V> e = findNode(key);
+		if(e == null) {
+			throw new NoSuchElementException("Key not found.");
+		}
+		return e.value;
+	}
+
+
+	public void put(K key, V value) {
+		putVal(key, value, false);
+	}
+
+	/**
+	 * Adds the entry only if the key is not already present.
+	 * @return true if the entry was added.
+	 */
+	public boolean putIfAbsent(K key, V value) {
+		return putVal(key, value, true);
+	}
+
+	/**
+	 * @return true if a new entry was added, false if the key was
+	 * already present (and its value replaced unless onlyIfAbsent).
+	 */
+	private boolean putVal(K key, V value, boolean onlyIfAbsent) {
+
+		if(key == null) {		// cannot put null key into map
+			return false;
+		}
+
+		int hash = rehash(key.hashCode());
+		Table<K,V> tab = table;
+
+		for(;;) {
+			int index = tab.indexFor(hash);
+			Node<K,V> f = tab.bins.get(index);
+			if(f == null) {
+				if(tab.bins.compareAndSet(index, null, new Node<>(hash, key, value, null))) {
+					break;
+				}
+				continue;
+			}
+			if(f.hash == MOVED) {
+				tab = helpTransfer((ForwardingNode<K,V>) f);
+				continue;
+			}
+			synchronized(f) {
+				if(tab.bins.get(index) != f) {
+					continue;
+				}
+				Node<K,V> e = f;
+				for(;; e = e.next) {
+					if(e.hash == hash && (e.key == key || e.key.equals(key))) {
+						if(!onlyIfAbsent) {
+							e.value = value;
+						}
+						return false;
+					}
+					if(e.next == null) {
+						break;
+					}
+				}
+				e.next = new Node<>(hash, key, value, null);
+			}
+			break;
+		}
+
+		count.increment();
+		growIfNeeded(table);
+		return true;
+
+	}
+
+
+	public K remove(K key) {
+		if(key != null) {
+			int hash = rehash(key.hashCode());
+			Table<K,V> tab = table;
+			for(;;) {
+				int index = tab.indexFor(hash);
+				Node<K,V> f = tab.bins.get(index);
+				if(f == null) {
+					break;
+				}
+				if(f.hash == MOVED) {
+					tab = helpTransfer((ForwardingNode<K,V>) f);
+					continue;
+				}
+				synchronized(f) {
+					if(tab.bins.get(index) != f) {
+						continue;
+					}
+					for(Node<K,V> e = f, previous = null; e != null; previous = e, e = e.next) {
+						if(e.hash == hash && (e.key == key || e.key.equals(key))) {
+							if(previous == null) {
+								tab.bins.set(index, e.next);
+							} else {
+								previous.next = e.next;
+							}
+							count.decrement();
+							return e.key;
+						}
+					}
+				}
+				break;
+			}
+		}
+		throw new NoSuchElementException("Key not found.");
+	}
+
+	/**
+	 * Resizes the given table once the map is three quarters full.
+	 */
+	private void growIfNeeded(Table<K,V> tab) {
+		int n = tab.bins.length();
+		if(count.sum() > n - (n >>> 2)) {
+			growMyHashTable(tab);
+		}
+	}
+
+	/**
+	 * Starts the resize of the given table unless it is already running,
+	 * and then helps it along.
+	 */
+	private void growMyHashTable(Table<K,V> tab) {
+		if(tab.bins.length() >= MAXIMUM_BUCKETS) {
+			return;
+		}
+		Resize<K,V> r = tab.resize.get();
+		if(r == null) {
+			tab.resize.compareAndSet(null, new Resize<>(tab));
+			r = tab.resize.get();
+		}
+		transfer(r);
+	}
+
+	/**
+	 * Called by a writer that found a forwarding entry: helps finish the
+	 * running resize and returns the table to retry against.
+	 */
+	private Table<K,V> helpTransfer(ForwardingNode<K,V> f) {
+		transfer(f.resize);
+		return f.resize.newTable;
+	}
+
+	/**
+	 * Claims strides of the old table until none are left. Entries are
+	 * copied, not moved, so readers still walking an old bucket see a
+	 * consistent chain. The thread that moves the last bucket publishes
+	 * the new table.
+	 */
+	private void transfer(Resize<K,V> r) {
+		int n = r.oldTable.bins.length();
+		int start;
+		while(r.transferIndex.get() < n && (start = r.transferIndex.getAndAdd(TRANSFER_STRIDE)) < n) {
+			int end = Math.min(start + TRANSFER_STRIDE, n);
+			for(int i = start; i < end; i++) {
+				transferBucket(r, i);
+			}
+			if(r.remaining.addAndGet(start - end) == 0) {
+				table = r.newTable;
+				growIfNeeded(r.newTable);
+				return;
+			}
+		}
+	}
+
+	private void transferBucket(Resize<K,V> r, int index) {
+		AtomicReferenceArray<Node<K,V>> oldBins = r.oldTable.bins;
+		AtomicReferenceArray<Node<K,V>> newBins = r.newTable.bins;
+		int n = oldBins.length();
+		for(;;) {
+			Node<K,V> f = oldBins.get(index);
+			if(f == null) {
+				if(oldBins.compareAndSet(index, null, r.forward)) {
+					return;
+				}
+				continue;
+			}
+			synchronized(f) {
+				if(oldBins.get(index) != f) {
+					continue;
+				}
+				Node<K,V> low = null;
+				Node<K,V> high = null;
+				for(Node<K,V> e = f; e != null; e = e.next) {
+					if((e.hash & n) == 0) {
+						low = new Node<>(e.hash, e.key, e.value, low);
+					} else {
+						high = new Node<>(e.hash, e.key, e.value, high);
+					}
+				}
+				newBins.set(index, low);
+				newBins.set(index + n, high);
+				oldBins.set(index, r.forward);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Returns a weakly consistent view of the keys: iteration never
+	 * throws ConcurrentModificationException and sees every key that was
+	 * present when it started and not removed since.
+	 */
+	public Set<K> keySet() {
+		if(keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	private class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new KeyIterator();
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentMyHashMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+	}
+
+	private class KeyIterator implements Iterator<K> {
+
+		private final Table<K,V> tab = table;
+		private final List<K> bucket = new ArrayList<>();
+		private int bucketIndex = 0;
+		private int tableIndex = 0;
+
+		/**
+		 * Collects the keys of one bucket, following forwarding entries
+		 * into the two buckets the old one was split into.
+		 */
+		private void collect(Table<K,V> t, int index) {
+			Node<K,V> e = t.bins.get(index);
+			if(e != null && e.hash == MOVED) {
+				Table<K,V> next = ((ForwardingNode<K,V>) e).resize.newTable;
+				collect(next, index);
+				collect(next, index + t.bins.length());
+				return;
+			}
+			for(; e != null; e = e.next) {
+				bucket.add(e.key);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			while(bucketIndex == bucket.size()) {
+				if(tableIndex == tab.bins.length()) {
+					return false;
+				}
+				bucket.clear();
+				bucketIndex = 0;
+				collect(tab, tableIndex++);
+			}
+			return true;
+		}
+
+		@Override
+		public K next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return bucket.get(bucketIndex++);
+		}
+
+	}
+
+}
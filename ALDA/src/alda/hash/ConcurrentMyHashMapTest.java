@@ -0,0 +1,160 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.*;
+
+public class ConcurrentMyHashMapTest {
+
+	private static final int THREADS = 4;
+	private static final int KEYS_PER_THREAD = 20000;
+
+	// Liten starttabell, så att trådarna får hjälpa till med många omhashningar.
+	private ConcurrentMyHashMap<String, Integer> map = new ConcurrentMyHashMap<>(2);
+	private ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Runs the task on THREADS threads, released at the same time, and
+	 * rethrows anything they threw.
+	 */
+	private <T> List<T> runTogether(IndexedTask<T> task) throws Exception {
+		CyclicBarrier start = new CyclicBarrier(THREADS);
+		List<Future<T>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int thread = t;
+			futures.add(executor.submit((Callable<T>) () -> {
+				start.await();
+				return task.run(thread);
+			}));
+		}
+		List<T> results = new ArrayList<>();
+		for (Future<T> future : futures) {
+			results.add(future.get());
+		}
+		return results;
+	}
+
+	private interface IndexedTask<T> {
+
+		T run(int thread) throws Exception;
+
+	}
+
+	@Test
+	public void testPutGetAndRemove() {
+		map.put("A", 1);
+		map.put("A", 2);
+		assertEquals(1, map.size());
+		assertEquals(Integer.valueOf(2), map.get("A"));
+		assertEquals("A", map.remove("A"));
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey("A"));
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testGetMissingKey() {
+		map.get("missing");
+	}
+
+	@Test
+	public void testConcurrentPutGetAndRemoveDuringResize() throws Exception {
+		runTogether(thread -> {
+			for (int i = 0; i < KEYS_PER_THREAD; i++) {
+				String key = thread + ":" + i;
+				map.put(key, i);
+				assertEquals(Integer.valueOf(i), map.get(key));
+				if (i % 2 == 0) {
+					assertEquals(key, map.remove(key));
+				}
+			}
+			return null;
+		});
+		assertEquals(THREADS * KEYS_PER_THREAD / 2, map.size());
+		for (int thread = 0; thread < THREADS; thread++) {
+			for (int i = 0; i < KEYS_PER_THREAD; i++) {
+				assertEquals(i % 2 == 1, map.containsKey(thread + ":" + i));
+			}
+		}
+	}
+
+	@Test
+	public void testPutIfAbsentRace() throws Exception {
+		List<Integer> wins = runTogether(thread -> {
+			int won = 0;
+			for (int i = 0; i < KEYS_PER_THREAD; i++) {
+				if (map.putIfAbsent("key" + i, thread)) {
+					won++;
+				}
+			}
+			return won;
+		});
+		int total = 0;
+		for (int won : wins) {
+			total += won;
+		}
+		assertEquals(KEYS_PER_THREAD, total);
+		assertEquals(KEYS_PER_THREAD, map.size());
+		int[] owned = new int[THREADS];
+		for (int i = 0; i < KEYS_PER_THREAD; i++) {
+			owned[map.get("key" + i)]++;
+		}
+		for (int thread = 0; thread < THREADS; thread++) {
+			assertEquals(wins.get(thread).intValue(), owned[thread]);
+		}
+	}
+
+	@Test
+	public void testKeySetDuringGrowth() throws Exception {
+		int initial = 1000;
+		for (int i = 0; i < initial; i++) {
+			map.put("old" + i, i);
+		}
+		AtomicInteger added = new AtomicInteger();
+		Future<?> writer = executor.submit(() -> {
+			for (int i = 0; i < THREADS * KEYS_PER_THREAD; i++) {
+				map.put("new" + i, i);
+				added.incrementAndGet();
+			}
+		});
+		int iterations = 0;
+		while (!writer.isDone() || iterations == 0) {
+			Set<String> seen = new HashSet<>();
+			for (String key : map.keySet()) {
+				assertTrue(seen.add(key));
+			}
+			for (int i = 0; i < initial; i++) {
+				assertTrue(seen.contains("old" + i));
+			}
+			iterations++;
+		}
+		writer.get();
+		assertEquals(initial + added.get(), map.size());
+		assertEquals(map.size(), new HashSet<>(map.keySet()).size());
+	}
+
+	@Test
+	public void testContainsChars() {
+		map.put("word", 1);
+		char[] chars = "a word".toCharArray();
+		assertTrue(map.containsChars("word".hashCode(), chars, 2, 4));
+		assertFalse(map.containsChars("a wo".hashCode(), chars, 0, 4));
+	}
+
+}
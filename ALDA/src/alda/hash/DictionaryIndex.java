@@ -0,0 +1,284 @@
+package alda.hash;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prebuilt, memory-mapped word dictionary. compile() turns a word list
+ * into a binary hash index once; open() maps that file read-only and
+ * answers lookups directly against the mapping, so nothing is parsed or
+ * allocated at startup beyond one pass over the table to check it, and
+ * every process on the machine shares the same pages through the OS page
+ * cache.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * header:  int magic, int version, int buckets, int words, int longest word,
+ *          int bytes of words
+ * table:   buckets x (int hash, int wordOffset); wordOffset -1 is empty
+ * words:   per word: char length, then length UTF-16 chars
+ * </pre>
+ * The table uses linear probing at a load factor of at most one half.
+ * The word list is read as UTF-8.
+ */
+public class DictionaryIndex implements WordDictionary {
+
+	private static final int MAGIC = 0x414C4449;		// "ALDI"
+	private static final int VERSION = 3;
+	private static final int HEADER_BYTES = 24;
+	private static final int MAXIMUM_BUCKETS = 1 << 28;
+	private static final int SLOT_BYTES = 8;
+	private static final int EMPTY = -1;
+
+	private final MappedByteBuffer buffer;
+	private final int mask;
+	private final int size;
+	private final int longestWord;
+	private final int wordsStart;
+
+	/**
+	 * Checks the header against the size of the mapping, and every word
+	 * the table points to against the words section, so that a truncated
+	 * or corrupt file is turned away here instead of being read out of
+	 * bounds later.
+	 */
+	private DictionaryIndex(MappedByteBuffer buffer) throws IOException {
+		if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not a dictionary index.");
+		}
+		int buckets = buffer.getInt(8);
+		int size = buffer.getInt(12);
+		int longestWord = buffer.getInt(16);
+		int wordBytes = buffer.getInt(20);
+		if(buckets < 2 || (buckets & (buckets - 1)) != 0 || buckets > MAXIMUM_BUCKETS
+				|| size < 0 || size >= buckets || longestWord < 0 || longestWord > Character.MAX_VALUE || wordBytes < 0) {
+			throw new IOException("Corrupt dictionary index.");
+		}
+		if((long) HEADER_BYTES + (long) buckets * SLOT_BYTES + wordBytes != buffer.capacity()) {
+			throw new IOException("Truncated dictionary index.");
+		}
+		this.buffer = buffer;
+		this.mask = buckets - 1;
+		this.size = size;
+		this.longestWord = longestWord;
+		this.wordsStart = HEADER_BYTES + buckets * SLOT_BYTES;
+		checkTable(buckets, wordBytes);
+	}
+
+	/**
+	 * Every word offset must lie inside the words section together with
+	 * the whole word, and the number of full slots must match the header;
+	 * since size is less than buckets that also leaves an empty slot to
+	 * end every probe.
+	 */
+	private void checkTable(int buckets, int wordBytes) throws IOException {
+		int count = 0;
+		for(int i = 0; i < buckets; i++) {
+			int offset = buffer.getInt(HEADER_BYTES + i * SLOT_BYTES + 4);
+			if(offset == EMPTY) {
+				continue;
+			}
+			if(offset < 0 || offset > wordBytes - 2
+					|| 2 + 2 * buffer.getChar(wordsStart + offset) > wordBytes - offset) {
+				throw new IOException("Corrupt dictionary index.");
+			}
+			count++;
+		}
+		if(count != size) {
+			throw new IOException("Corrupt dictionary index.");
+		}
+	}
+
+	/**
+	 * Maps a compiled index file read-only.
+	 * @param filename The path to a file written by compile().
+	 */
+	public static DictionaryIndex open(String filename) throws IOException {
+		try(RandomAccessFile file = new RandomAccessFile(filename, "r");
+				FileChannel channel = file.getChannel()) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Dictionary index too large.");
+			}
+			return new DictionaryIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Hashes a word the same way String.hashCode() does, without needing
+	 * a String, and spreads the result like MyHashMap.
+	 */
+	private static int hash(CharSequence word) {
+		int h = 0;
+		for(int i = 0; i < word.length(); i++) {
+			h = 31 * h + word.charAt(i);
+		}
+		return spread(h);
+	}
+
+	private static int spread(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The length of the longest word in the index.
+	 */
+	public int longestWord() {
+		return longestWord;
+	}
+
+	@Override
+	public boolean contains(CharSequence word) {
+		int hash = hash(word);
+		for(int i = hash & mask; ; i = (i + 1) & mask) {
+			int slot = HEADER_BYTES + i * SLOT_BYTES;
+			int offset = buffer.getInt(slot + 4);
+			if(offset == EMPTY) {
+				return false;
+			}
+			if(buffer.getInt(slot) == hash && matches(wordsStart + offset, word)) {
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(int hash, char[] chars, int offset, int length) {
+		hash = spread(hash);
+		for(int i = hash & mask; ; i = (i + 1) & mask) {
+			int slot = HEADER_BYTES + i * SLOT_BYTES;
+			int wordOffset = buffer.getInt(slot + 4);
+			if(wordOffset == EMPTY) {
+				return false;
+			}
+			if(buffer.getInt(slot) == hash && matches(wordsStart + wordOffset, chars, offset, length)) {
+				return true;
+			}
+		}
+	}
+
+	private boolean matches(int position, char[] chars, int offset, int length) {
+		if(buffer.getChar(position) != length) {
+			return false;
+		}
+		position += 2;
+		for(int i = 0; i < length; i++, position += 2) {
+			if(buffer.getChar(position) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean matches(int position, CharSequence word) {
+		int length = buffer.getChar(position);
+		if(length != word.length()) {
+			return false;
+		}
+		position += 2;
+		for(int i = 0; i < length; i++, position += 2) {
+			if(buffer.getChar(position) != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a UTF-8 word list, one word per line, and writes the index file.
+	 * Duplicate lines are stored once.
+	 * @param wordListFile The path to the word list.
+	 * @param indexFile The path of the index file to create.
+	 */
+	public static void compile(String wordListFile, String indexFile) throws IOException {
+
+		List<String> words = new ArrayList<>();
+		try(BufferedReader inputBuffer = Files.newBufferedReader(Paths.get(wordListFile), StandardCharsets.UTF_8)) {
+			for(String entry = inputBuffer.readLine(); entry != null; entry = inputBuffer.readLine()) {
+				if(entry.length() <= Character.MAX_VALUE) {
+					words.add(entry);
+				}
+			}
+		}
+
+		int buckets = 2;
+		while(buckets < words.size() * 2) {
+			buckets <<= 1;
+		}
+		int mask = buckets - 1;
+		int[] hashes = new int[buckets];
+		int[] offsets = new int[buckets];
+		Arrays.fill(offsets, EMPTY);
+		String[] slotWords = new String[buckets];
+
+		int wordBytes = 0;
+		int count = 0;
+		int longest = 0;
+		for(String word : words) {
+			int hash = hash(word);
+			int i = hash & mask;
+			while(offsets[i] != EMPTY && !(hashes[i] == hash && slotWords[i].equals(word))) {
+				i = (i + 1) & mask;
+			}
+			if(offsets[i] == EMPTY) {
+				hashes[i] = hash;
+				offsets[i] = wordBytes;
+				slotWords[i] = word;
+				wordBytes += 2 + 2 * word.length();
+				count++;
+				longest = Math.max(longest, word.length());
+			}
+		}
+
+		ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + buckets * SLOT_BYTES + wordBytes);
+		out.putInt(MAGIC).putInt(VERSION).putInt(buckets).putInt(count).putInt(longest).putInt(wordBytes);
+		for(int i = 0; i < buckets; i++) {
+			out.putInt(hashes[i]).putInt(offsets[i]);
+		}
+		for(int i = 0; i < buckets; i++) {
+			if(offsets[i] != EMPTY) {
+				out.position(HEADER_BYTES + buckets * SLOT_BYTES + offsets[i]);
+				out.putChar((char) slotWords[i].length());
+				for(int c = 0; c < slotWords[i].length(); c++) {
+					out.putChar(slotWords[i].charAt(c));
+				}
+			}
+		}
+		out.rewind();
+
+		try(RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+				FileChannel channel = file.getChannel()) {
+			channel.truncate(0);
+			while(out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+
+	}
+
+	/**
+	 * Command-line entry point: DictionaryIndex wordListFile indexFile
+	 */
+	public static void main(String args[]) throws IOException {
+		if(args.length != 2) {
+			System.out.println("Usage: DictionaryIndex <word list file> <index file>");
+			return;
+		}
+		compile(args[0], args[1]);
+	}
+
+}
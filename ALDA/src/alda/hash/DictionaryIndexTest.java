@@ -0,0 +1,118 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.*;
+
+public class DictionaryIndexTest {
+
+	private static final List<String> WORDS = Arrays.asList("potato", "order", "border", "öken", "vertex", "order", "preview");
+
+	private File wordList;
+	private File index;
+
+	@Before
+	public void compile() throws IOException {
+		wordList = File.createTempFile("words", ".txt");
+		wordList.deleteOnExit();
+		index = File.createTempFile("words", ".idx");
+		index.deleteOnExit();
+		Files.write(wordList.toPath(), WORDS, StandardCharsets.UTF_8);
+		DictionaryIndex.compile(wordList.getPath(), index.getPath());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		DictionaryIndex dictionary = DictionaryIndex.open(index.getPath());
+		assertEquals(6, dictionary.size());
+		assertEquals(7, dictionary.longestWord());
+		for (String word : WORDS) {
+			assertTrue(dictionary.contains(word));
+			char[] chars = (" " + word).toCharArray();
+			assertTrue(dictionary.contains(chars, 1, word.length()));
+		}
+		assertTrue(dictionary.contains("preview"));
+		assertFalse(dictionary.contains("previews"));
+		assertFalse(dictionary.contains("orde"));
+		assertFalse(dictionary.contains("missing"));
+		assertFalse(dictionary.contains(""));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedFile() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+			file.setLength(file.length() - 2);
+		}
+		DictionaryIndex.open(index.getPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptHeader() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+			file.seek(8);
+			file.writeInt(3);
+		}
+		DictionaryIndex.open(index.getPath());
+	}
+
+	/**
+	 * @return The file position of the word offset in the first full slot.
+	 */
+	private long firstFullSlot(RandomAccessFile file) throws IOException {
+		file.seek(8);
+		int buckets = file.readInt();
+		for (int i = 0; i < buckets; i++) {
+			file.seek(24 + 8 * i + 4);
+			if (file.readInt() != -1) {
+				return 24 + 8 * i + 4;
+			}
+		}
+		throw new AssertionError();
+	}
+
+	@Test(expected = IOException.class)
+	public void testOffsetOutsideFile() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+			file.seek(firstFullSlot(file));
+			file.writeInt(1 << 20);
+		}
+		DictionaryIndex.open(index.getPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWordLengthOutsideFile() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+			file.seek(8);
+			int buckets = file.readInt();
+			file.seek(firstFullSlot(file));
+			int offset = file.readInt();
+			// Längden på ordet pekar förbi slutet av filen.
+			file.seek(24 + 8 * buckets + offset);
+			file.writeChar(1000);
+		}
+		DictionaryIndex.open(index.getPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void testSlotCountMismatch() throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+			file.seek(firstFullSlot(file));
+			file.writeInt(-1);
+		}
+		DictionaryIndex.open(index.getPath());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotAnIndex() throws IOException {
+		DictionaryIndex.open(wordList.getPath());
+	}
+
+}
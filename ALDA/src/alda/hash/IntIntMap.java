@@ -0,0 +1,274 @@
+package alda.hash;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Hash map from int to int, laid out like MyHashMap: linear probing over
+ * flat arrays, backward-shift deletion, and the same hash spread. Keys
+ * and values live in int arrays, so nothing is boxed on put, get or
+ * iteration.
+ *
+ * An empty slot is marked by the key 0; the key 0 itself is therefore
+ * kept outside the table, in a field of its own.
+ */
+public class IntIntMap {
+
+	/**
+	 * Receives the entries of the map from forEach().
+	 */
+	public interface EntryConsumer {
+
+		void accept(int key, int value);
+
+	}
+
+	private static final int DEFAULT_BUCKETS = 16;
+	private static final int MAXIMUM_BUCKETS = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int FREE = 0;
+
+	private int[] keys;
+	private int[] values;
+	private int mask;
+	private int threshold;
+	private int size = 0;
+	private int modCount = 0;
+	private boolean hasZeroKey = false;
+	private int zeroValue;
+
+	public IntIntMap() {
+		this(DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * @param i The initial number of buckets.
+	 */
+	public IntIntMap(int i) {
+		int n = 2;
+		while(n < i && n < MAXIMUM_BUCKETS) {
+			n <<= 1;
+		}
+		allocate(n);
+	}
+
+	private void allocate(int buckets) {
+		keys = new int[buckets];
+		values = new int[buckets];
+		mask = buckets - 1;
+		threshold = (int) (buckets * LOAD_FACTOR);
+	}
+
+	private static int rehash(int i) {
+		i *= 0x9E3779B9;
+		return i ^ (i >>> 16);
+	}
+
+	/**
+	 * @return The slot holding the key, or -1. Not used for the key 0.
+	 */
+	private int indexOf(int key) {
+		for(int i = rehash(key) & mask; ; i = (i + 1) & mask) {
+			int k = keys[i];
+			if(k == FREE) {
+				return -1;
+			}
+			if(k == key) {
+				return i;
+			}
+		}
+	}
+
+
+	public int size() {
+		return size;
+	}
+
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+
+	public boolean containsKey(int key) {
+		return (key == FREE) ? hasZeroKey : indexOf(key) >= 0;
+	}
+
+
+	public int get(int key) {
+		if(key == FREE) {
+			if(hasZeroKey) {
+				return zeroValue;
+			}
+		} else {
+			int index = indexOf(key);
+			if(index >= 0) {
+				return values[index];
+			}
+		}
+		throw new NoSuchElementException("Key not found.");
+	}
+
+	/**
+	 * @return The value of the key, or defaultValue if it is not present.
+	 */
+	public int getOrDefault(int key, int defaultValue) {
+		if(key == FREE) {
+			return hasZeroKey ? zeroValue : defaultValue;
+		}
+		int index = indexOf(key);
+		return (index >= 0) ? values[index] : defaultValue;
+	}
+
+
+	public void put(int key, int value) {
+		if(key == FREE) {
+			if(!hasZeroKey) {
+				hasZeroKey = true;
+				++size;
+				++modCount;
+			}
+			zeroValue = value;
+			return;
+		}
+		int index = rehash(key) & mask;
+		for(int k; (k = keys[index]) != FREE; index = (index + 1) & mask) {
+			if(k == key) {
+				values[index] = value;
+				return;
+			}
+		}
+		keys[index] = key;
+		values[index] = value;
+		++size;
+		++modCount;
+		if(size > threshold) {
+			growMyHashTable();
+		}
+	}
+
+	/**
+	 * Adds delta to the value of the key, which counts as 0 if the key
+	 * is not present yet.
+	 * @return The new value.
+	 */
+	public int addTo(int key, int delta) {
+		if(key == FREE) {
+			put(key, getOrDefault(key, 0) + delta);
+			return zeroValue;
+		}
+		int index = rehash(key) & mask;
+		for(int k; (k = keys[index]) != FREE; index = (index + 1) & mask) {
+			if(k == key) {
+				return values[index] += delta;
+			}
+		}
+		put(key, delta);
+		return delta;
+	}
+
+	private void growMyHashTable() {
+		if(keys.length >= MAXIMUM_BUCKETS) {
+			return;
+		}
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(keys.length * 2);
+		for(int i = 0; i < oldKeys.length; i++) {
+			int k = oldKeys[i];
+			if(k != FREE) {
+				int index = rehash(k) & mask;
+				while(keys[index] != FREE) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = k;
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * @return The value that was mapped to the key.
+	 */
+	public int remove(int key) {
+		int removed;
+		if(key == FREE) {
+			if(!hasZeroKey) {
+				throw new NoSuchElementException("Key not found.");
+			}
+			hasZeroKey = false;
+			removed = zeroValue;
+		} else {
+			int index = indexOf(key);
+			if(index < 0) {
+				throw new NoSuchElementException("Key not found.");
+			}
+			removed = values[index];
+			deleteSlot(index);
+		}
+		--size;
+		++modCount;
+		return removed;
+	}
+
+	/**
+	 * Empties the slot and shifts later entries of the same probe run
+	 * backwards, as in MyHashMap.
+	 */
+	private void deleteSlot(int gap) {
+		for(int i = (gap + 1) & mask; keys[i] != FREE; i = (i + 1) & mask) {
+			int home = rehash(keys[i]) & mask;
+			if(((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+		}
+		keys[gap] = FREE;
+	}
+
+	public void clear() {
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = FREE;
+		}
+		hasZeroKey = false;
+		size = 0;
+		++modCount;
+	}
+
+	/**
+	 * Passes every entry to the consumer, in table order.
+	 * @throws ConcurrentModificationException if the consumer changes the map.
+	 */
+	public void forEach(EntryConsumer consumer) {
+		int initCount = modCount;
+		if(hasZeroKey) {
+			consumer.accept(FREE, zeroValue);
+		}
+		for(int i = 0; i < keys.length; i++) {
+			if(modCount != initCount)
+				throw new ConcurrentModificationException();
+			if(keys[i] != FREE) {
+				consumer.accept(keys[i], values[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return A new array holding every key, in table order.
+	 */
+	public int[] keys() {
+		int[] result = new int[size];
+		int n = 0;
+		if(hasZeroKey) {
+			result[n++] = FREE;
+		}
+		for(int k : keys) {
+			if(k != FREE) {
+				result[n++] = k;
+			}
+		}
+		return result;
+	}
+
+}
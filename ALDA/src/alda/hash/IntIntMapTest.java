@@ -0,0 +1,64 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntIntMapTest {
+
+	private IntIntMap map = new IntIntMap(4);
+
+	@Test
+	public void testPutGetRemove() {
+		map.put(0, 10);
+		map.put(1, 11);
+		map.put(-1, 9);
+		assertEquals(3, map.size());
+		assertEquals(10, map.get(0));
+		assertEquals(9, map.get(-1));
+		assertEquals(10, map.remove(0));
+		assertFalse(map.containsKey(0));
+		assertEquals(-5, map.getOrDefault(0, -5));
+		assertEquals(2, map.size());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testGetMissing() {
+		map.get(42);
+	}
+
+	@Test
+	public void testAddTo() {
+		assertEquals(3, map.addTo(7, 3));
+		assertEquals(5, map.addTo(7, 2));
+		assertEquals(1, map.addTo(0, 1));
+		assertEquals(5, map.get(7));
+	}
+
+	@Test
+	public void testAgainstHashMap() {
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.containsKey(key), map.containsKey(key));
+				if (expected.containsKey(key)) {
+					assertEquals((int) expected.remove(key), map.remove(key));
+				}
+			} else {
+				expected.put(key, i);
+				map.put(key, i);
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		map.forEach((key, value) -> assertEquals((int) expected.get(key), value));
+		assertEquals(expected.size(), map.keys().length);
+	}
+
+}
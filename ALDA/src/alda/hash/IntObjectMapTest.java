@@ -0,0 +1,69 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntObjectMapTest {
+
+	private IntObjectMap<String> map = new IntObjectMap<>(4);
+
+	@Test
+	public void testPutGetRemove() {
+		map.put(0, "zero");
+		map.put(1, "one");
+		map.put(-1, "minus one");
+		assertEquals(3, map.size());
+		assertEquals("zero", map.get(0));
+		assertEquals("minus one", map.get(-1));
+		map.put(1, "ett");
+		assertEquals(3, map.size());
+		assertEquals("ett", map.get(1));
+		assertEquals("zero", map.remove(0));
+		assertFalse(map.containsKey(0));
+		assertEquals("none", map.getOrDefault(0, "none"));
+		assertEquals(2, map.size());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testGetMissing() {
+		map.put(1, "one");
+		map.get(42);
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testRemoveMissing() {
+		map.put(1, "one");
+		map.remove(0);
+	}
+
+	@Test
+	public void testAgainstHashMap() {
+		Map<Integer, String> expected = new HashMap<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(2000) - 1000;
+			if (random.nextInt(3) == 0) {
+				assertEquals(expected.containsKey(key), map.containsKey(key));
+				if (expected.containsKey(key)) {
+					assertEquals(expected.remove(key), map.remove(key));
+				}
+			} else {
+				expected.put(key, String.valueOf(i));
+				map.put(key, String.valueOf(i));
+			}
+		}
+		assertEquals(expected.size(), map.size());
+		map.forEach((key, value) -> assertEquals(expected.get(key), value));
+		assertEquals(expected.size(), map.keys().length);
+		for (int key = -1000; key < 1000; key++) {
+			assertEquals(expected.get(key), map.getOrDefault(key, null));
+		}
+	}
+
+}
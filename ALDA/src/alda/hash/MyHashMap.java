@@ -1,51 +1,470 @@
 package alda.hash;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
+/**
+ * Open-addressing hash map using linear probing. Keys, values and the
+ * cached hash codes are kept in three flat, parallel arrays, so each
+ * entry costs three array slots instead of a node object; removals use
+ * backward-shift deletion, so no tombstones are ever left in the table.
+ *
+ * By default the table is rehashed in one go when it grows. A map created
+ * with incremental resizing instead keeps the old table around and moves
+ * a few of its slots into the new table on every operation, so no single
+ * put has to pay for rehashing the whole map.
+ *
+ * The key, value and entry views read straight from the table, and
+ * their spliterators split it by slot range for parallel streams.
+ *
+ * Statistics on lookups, resizes and probe lengths are off by default;
+ * enableStatistics() turns them on for a single map.
+ *
+ * Null keys are not supported.
+ */
 public class MyHashMap<K,V> {
 
-	private class MyHashEntry<K,V> {
+	private static final int DEFAULT_BUCKETS = 16;
+	private static final int MAXIMUM_BUCKETS = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int MIGRATION_STEP = 8;
+	private static final Object REMOVED = new Object();
+	private static final int SNAPSHOT_MAGIC = 0x414C444D;		// "ALDM"
+	private static final int SNAPSHOT_VERSION = 1;
+
+	private Object[] keys;
+	private Object[] values;
+	private int[] hashes;
+	private int mask;
+	private int threshold;
+	private int size = 0;
+	private int modCount = 0;
+	private Set<K> keySet;
+	private Collection<V> valueCollection;
+	private Set<Map.Entry<K,V>> entrySet;
+
+	/**
+	 * The table being drained while an incremental resize is in progress,
+	 * or null. Slots below migrateIndex have already been moved, and moved
+	 * or removed entries are marked REMOVED so that the probe runs of the
+	 * remaining entries stay intact. A key is never in both tables at once.
+	 */
+	private Object[] oldKeys;
+	private Object[] oldValues;
+	private int[] oldHashes;
+	private int oldMask;
+	private int migrateIndex;
+	private final boolean incrementalResize;
+	private MyHashMapStatistics statistics;
 
-		K key;
-		V value;
-		MyHashEntry<K,V> next;
+	public MyHashMap() {
+		this(DEFAULT_BUCKETS);
+	}
 
-		public MyHashEntry(K key, V value) {
-			this.key = key;
-			this.value = value;
+	public MyHashMap(int i) {
+		this(i, false);
+	}
+
+	/**
+	 * @param i The initial number of buckets.
+	 * @param incrementalResize If true, growing the table spreads the
+	 * rehash over the following operations instead of doing it at once.
+	 */
+	public MyHashMap(int i, boolean incrementalResize) {
+		this.incrementalResize = incrementalResize;
+		allocate(tableSizeFor(i));
+	}
+
+	/**
+	 * Creates a map whose table is already large enough to hold
+	 * expectedSize entries without growing.
+	 */
+	public static <K,V> MyHashMap<K,V> withExpectedSize(int expectedSize) {
+		return new MyHashMap<>(bucketsFor(expectedSize));
+	}
+
+	/**
+	 * Reads a file with one key per line into a new map, mapping every
+	 * key to the same value. The table is allocated once, at its final
+	 * size, and filled in a single pass without any intermediate resize.
+	 * @param filename The path to the file.
+	 * @param value The value to store for every key, often null.
+	 * @param expectedSize The expected number of lines, or 0 to have
+	 * them counted first with a quick scan over the raw bytes.
+	 */
+	public static <V> MyHashMap<String,V> fromLines(String filename, V value, int expectedSize) throws IOException {
+		Path path = Paths.get(filename);
+		if(expectedSize <= 0) {
+			expectedSize = countLines(path);
+		}
+		MyHashMap<String,V> map = withExpectedSize(expectedSize);
+		try(BufferedReader inputBuffer = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			for(String entry = inputBuffer.readLine(); entry != null; entry = inputBuffer.readLine()) {
+				map.put(entry, value);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Writes the map to a file in its table layout: the number of
+	 * buckets, the cached hash code of every slot, a bitmap of the
+	 * occupied slots, and then the key and value of each occupied slot
+	 * in table order. load() restores the table slot for slot, so no key
+	 * is ever hashed again; the keys must therefore have the same hash
+	 * codes in the loading process, as Strings and Integers do.
+	 * <pre>
+	 * header:  int magic, int version, int buckets, int size
+	 * hashes:  buckets x int
+	 * bitmap:  (buckets + 7) / 8 bytes, lowest slot in the lowest bit
+	 * entries: size x (key, value) as written by the codecs
+	 * </pre>
+	 */
+	public void save(String filename, MyHashMapCodec<? super K> keyCodec, MyHashMapCodec<? super V> valueCodec) throws IOException {
+		completeMigration();
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(filename)), 1 << 16))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeInt(keys.length);
+			out.writeInt(size);
+			for(int hash : hashes) {
+				out.writeInt(hash);
+			}
+			for(int i = 0; i < keys.length; i += 8) {
+				int bits = 0;
+				for(int j = 0; j < 8 && i + j < keys.length; j++) {
+					if(keys[i + j] != null) {
+						bits |= 1 << j;
+					}
+				}
+				out.writeByte(bits);
+			}
+			for(int i = 0; i < keys.length; i++) {
+				if(keys[i] != null) {
+					keyCodec.write(keyOf(i), out);
+					valueCodec.write(valueOf(i), out);
+				}
+			}
 		}
+	}
 
+	@SuppressWarnings("unchecked")
+	private K keyOf(int index) {
+		return (K) keys[index];
 	}
 
-	private MyHashEntry<K,V>[] table;
-	private Set<MyHashEntry<K,V>> entrySet = new HashSet<>();
-	private Set<K> keySet = new HashSet<>();
-//	private Set<V> values = new HashSet<>();
-	private static final int DEFAULT_BUCKETS = 16;
-	private int numberOfBuckets;
-	private int size = 0;
+	@SuppressWarnings("unchecked")
+	private V valueOf(int index) {
+		return (V) values[index];
+	}
 
-	//	private final static long PRIME = 1949054221; // Prime no: 95841901
+	/**
+	 * Reads a file written by save() with one sequential read, and
+	 * restores the map from it slot for slot, without calling hashCode()
+	 * or equals() on any key. A truncated or corrupt file, including one
+	 * a codec cannot decode, gives an IOException.
+	 */
+	public static <K,V> MyHashMap<K,V> load(String filename, MyHashMapCodec<? extends K> keyCodec, MyHashMapCodec<? extends V> valueCodec) throws IOException {
+		ByteBuffer in;
+		try(FileChannel channel = FileChannel.open(Paths.get(filename))) {
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("MyHashMap snapshot too large.");
+			}
+			in = ByteBuffer.allocate((int) channel.size());
+			while(in.hasRemaining() && channel.read(in) >= 0) {
+				;
+			}
+			in.flip();
+		}
+		if(in.remaining() < 16 || in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+			throw new IOException("Not a MyHashMap snapshot.");
+		}
+		int buckets = in.getInt();
+		int size = in.getInt();
+		if(buckets < 2 || (buckets & (buckets - 1)) != 0 || buckets > MAXIMUM_BUCKETS || size < 0 || size >= buckets) {
+			throw new IOException("Corrupt MyHashMap snapshot.");
+		}
+		MyHashMap<K,V> map = new MyHashMap<>(buckets);
+		try {
+			in.asIntBuffer().get(map.hashes);
+			in.position(in.position() + 4 * buckets);
+			byte[] bitmap = new byte[(buckets + 7) / 8];
+			in.get(bitmap);
+			for(int i = 0; i < buckets; i++) {
+				if((bitmap[i >>> 3] & (1 << (i & 7))) != 0) {
+					map.keys[i] = keyCodec.read(in);
+					map.values[i] = valueCodec.read(in);
+					if(map.keys[i] == null) {
+						throw new IOException("Null key in MyHashMap snapshot.");
+					}
+					map.size++;
+				}
+			}
+		} catch(BufferUnderflowException e) {
+			throw new IOException("Truncated MyHashMap snapshot.", e);
+		} catch(RuntimeException e) {
+			throw new IOException("Corrupt MyHashMap snapshot.", e);
+		}
+		if(map.size != size) {
+			throw new IOException("Corrupt MyHashMap snapshot.");
+		}
+		return map;
+	}
 
-	public MyHashMap() {
-		this(DEFAULT_BUCKETS);
+	/**
+	 * Counts the lines of a file by scanning its bytes for line breaks,
+	 * without decoding them.
+	 */
+	static int countLines(Path path) throws IOException {
+		int lines = 0;
+		byte last = '\n';
+		try(FileChannel channel = FileChannel.open(path)) {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			while(channel.read(buffer) > 0) {
+				buffer.flip();
+				while(buffer.hasRemaining()) {
+					last = buffer.get();
+					if(last == '\n') {
+						lines++;
+					}
+				}
+				buffer.clear();
+			}
+		}
+		return last == '\n' ? lines : lines + 1;
 	}
-	
-	public MyHashMap(int i) {
-		table = new MyHashEntry[i];
-		numberOfBuckets = i;
+
+	/**
+	 * @return The number of buckets needed to hold expectedSize
+	 * entries without exceeding the load factor.
+	 */
+	private static int bucketsFor(int expectedSize) {
+		return (int) Math.min(MAXIMUM_BUCKETS, (long) Math.ceil(expectedSize / (double) LOAD_FACTOR));
+	}
+
+	/**
+	 * Grows the table, at most once, so that it can hold expectedSize
+	 * entries without any further resize.
+	 */
+	public void ensureCapacity(int expectedSize) {
+		int buckets = tableSizeFor(bucketsFor(expectedSize));
+		if(buckets > keys.length) {
+			resizeTable(buckets);
+			completeMigration();
+		}
+	}
+
+	/**
+	 * Adds every key of the collection, mapped to the same value. The
+	 * table is grown once up front instead of repeatedly along the way.
+	 */
+	public void putAll(Collection<? extends K> keys, V value) {
+		putAll(keys.iterator(), value, keys.size());
+	}
+
+	/**
+	 * Adds every key the iterator returns, mapped to the same value.
+	 * @param expectedSize A hint of how many keys the iterator returns;
+	 * the table is sized for it once before the first key is added.
+	 */
+	public void putAll(Iterator<? extends K> keys, V value, int expectedSize) {
+		ensureCapacity(size + expectedSize);
+		while(keys.hasNext()) {
+			put(keys.next(), value);
+		}
+	}
+
+	/**
+	 * Rounds the requested number of buckets up to the nearest
+	 * power of two, so that indices can be masked instead of
+	 * computed with a modulo.
+	 */
+	private static int tableSizeFor(int buckets) {
+		if(buckets >= MAXIMUM_BUCKETS) {
+			return MAXIMUM_BUCKETS;
+		}
+		int n = 2;
+		while(n < buckets) {
+			n <<= 1;
+		}
+		return n;
+	}
+
+	private void allocate(int buckets) {
+		keys = new Object[buckets];
+		values = new Object[buckets];
+		hashes = new int[buckets];
+		mask = buckets - 1;
+		threshold = (int) (buckets * LOAD_FACTOR);
 	}
 
 	/**
 	 * Re-hashes the incoming hash code to guard against poor hash codes.
 	 * @param i The hash code obtained from the key class.
-	 * @return Returns a new hash code, obtained by performing a bitwise
-	 * AND operation on i and the largest possible Integer value
-	 * (2^31 - 1) to ensure handling of negative values for i.
+	 * @return Returns a new hash code, obtained by multiplying i with the
+	 * golden ratio constant and folding the high bits into the low ones,
+	 * so that keys with similar hash codes do not form long probe runs
+	 * once the result is masked down to a table index.
+	 */
+	private static int rehash(int i) {
+		i *= 0x9E3779B9;
+		return i ^ (i >>> 16);
+	}
+
+	/**
+	 * Probes the table for the key.
+	 * @return The slot holding the key, or -1 if it is not present.
+	 */
+	private int indexOf(Object key) {
+		if(key == null) {
+			return -1;
+		}
+		int hash = rehash(key.hashCode());
+		Object[] keys = this.keys;
+		for(int i = hash & mask; ; i = (i + 1) & mask) {
+			Object k = keys[i];
+			if(k == null) {
+				return -1;
+			}
+			if(hashes[i] == hash && (k == key || k.equals(key))) {
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * Probes the table being drained for the key.
+	 * @return The slot holding the key, or -1 if it is not present
+	 * or no resize is in progress.
+	 */
+	private int oldIndexOf(Object key) {
+		if(oldKeys == null || key == null) {
+			return -1;
+		}
+		int hash = rehash(key.hashCode());
+		for(int i = hash & oldMask; ; i = (i + 1) & oldMask) {
+			Object k = oldKeys[i];
+			if(k == null) {
+				return -1;
+			}
+			if(k != REMOVED && oldHashes[i] == hash && (k == key || k.equals(key))) {
+				return i;
+			}
+		}
+	}
+
+	private void removeOld(int index) {
+		oldKeys[index] = REMOVED;
+		oldValues[index] = null;
+	}
+
+	/**
+	 * Moves up to the given number of slots from the table being drained
+	 * into the current table, and drops the old table once it is empty.
+	 */
+	private void migrate(int slots) {
+		int end = Math.min(migrateIndex + slots, oldKeys.length);
+		for(; migrateIndex < end; migrateIndex++) {
+			Object k = oldKeys[migrateIndex];
+			if(k != null && k != REMOVED) {
+				insert(k, oldValues[migrateIndex], oldHashes[migrateIndex]);
+				removeOld(migrateIndex);
+			}
+		}
+		if(migrateIndex == oldKeys.length) {
+			oldKeys = null;
+			oldValues = null;
+			oldHashes = null;
+		}
+	}
+
+	private void migrateStep() {
+		if(oldKeys != null) {
+			migrate(MIGRATION_STEP);
+		}
+	}
+
+	private void completeMigration() {
+		if(oldKeys != null) {
+			migrate(oldKeys.length);
+		}
+	}
+
+
+	/**
+	 * Starts collecting statistics for this map. Until this is called the
+	 * hot path pays nothing but a null check.
+	 * @return The statistics, which can also be registered over JMX.
 	 */
-	private int rehash(int i) {
-		return (i & Integer.MAX_VALUE) % table.length;
+	public MyHashMapStatistics enableStatistics() {
+		if(statistics == null) {
+			statistics = new MyHashMapStatistics(this);
+		}
+		return statistics;
+	}
+
+	/**
+	 * Stops collecting statistics. Earlier counts are discarded.
+	 */
+	public void disableStatistics() {
+		statistics = null;
+	}
+
+	int buckets() {
+		return keys.length;
+	}
+
+	/**
+	 * Counts the entries of both tables by their distance from their home
+	 * slot. Distances beyond the end of the histogram are added to its
+	 * last element.
+	 * @return The longest distance found.
+	 */
+	int probeLengths(long[] histogram) {
+		int longest = probeLengths(keys, hashes, histogram);
+		Object[] oldKeys = this.oldKeys;
+		int[] oldHashes = this.oldHashes;
+		if(oldKeys != null && oldHashes != null) {
+			longest = Math.max(longest, probeLengths(oldKeys, oldHashes, histogram));
+		}
+		return longest;
+	}
+
+	private static int probeLengths(Object[] keys, int[] hashes, long[] histogram) {
+		int buckets = Math.min(keys.length, hashes.length);
+		int mask = buckets - 1;
+		int longest = 0;
+		for(int i = 0; i < buckets; i++) {
+			Object k = keys[i];
+			if(k != null && k != REMOVED) {
+				int distance = (i - hashes[i]) & mask;
+				histogram[Math.min(distance, histogram.length - 1)]++;
+				longest = Math.max(longest, distance);
+			}
+		}
+		return longest;
 	}
 
 
@@ -60,119 +479,537 @@ public class MyHashMap<K,V> {
 
 
 	public boolean containsKey(Object key) {
-		return keySet.contains(key);
+		migrateStep();
+		boolean found = indexOf(key) >= 0 || oldIndexOf(key) >= 0;
+		if(statistics != null) {
+			statistics.recordLookup(found);
+		}
+		return found;
 	}
 
 
-//	public boolean containsValue(V value) {
-//		return valueSet.contains(value);
-//	}
+	/**
+	 * Looks up a String key given as a slice of a char array, without
+	 * creating the String. Keys that are not Strings never match.
+	 * @param hash The String.hashCode() of the slice.
+	 */
+	boolean containsChars(int hash, char[] chars, int offset, int length) {
+		migrateStep();
+		hash = rehash(hash);
+		boolean found = probeChars(keys, hashes, mask, hash, chars, offset, length)
+				|| (oldKeys != null && probeChars(oldKeys, oldHashes, oldMask, hash, chars, offset, length));
+		if(statistics != null) {
+			statistics.recordLookup(found);
+		}
+		return found;
+	}
 
+	private static boolean probeChars(Object[] keys, int[] hashes, int mask, int hash, char[] chars, int offset, int length) {
+		for(int i = hash & mask; ; i = (i + 1) & mask) {
+			Object k = keys[i];
+			if(k == null) {
+				return false;
+			}
+			if(hashes[i] == hash && k instanceof String && regionMatches((String) k, chars, offset, length)) {
+				return true;
+			}
+		}
+	}
 
+	private static boolean regionMatches(String key, char[] chars, int offset, int length) {
+		if(key.length() != length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(key.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	@SuppressWarnings("unchecked")
 	public V get(K key) {
-		int index = rehash(key.hashCode());
-		MyHashEntry<K,V> e = table[index];
-		if (e != null) {
-			for(; e.next != null; e = e.next) {
-				if(e.key == key) {
-					return e.value;
-				}
+		migrateStep();
+		int index = indexOf(key);
+		if(index >= 0) {
+			if(statistics != null) {
+				statistics.recordLookup(true);
 			}
+			return (V) values[index];
+		}
+		index = oldIndexOf(key);
+		if(statistics != null) {
+			statistics.recordLookup(index >= 0);
+		}
+		if(index >= 0) {
+			return (V) oldValues[index];
 		}
-		throw new java.util.NoSuchElementException("Key not found.");
+		throw new NoSuchElementException("Key not found.");
 	}
 
 
 	public void put(K key, V value) {
-		
-		if(key.equals(null)) {		// cannot put null key into map
+
+		if(key == null) {		// cannot put null key into map
 			return;
 		}
-		
-		int index = rehash(key.hashCode());
-		
-		MyHashEntry<K,V> newEntry = new MyHashEntry<>(key, value);
-		MyHashEntry<K,V> currentEntry = table[index];
-		
+
+		migrateStep();
+
+		int hash = rehash(key.hashCode());
+		int index = hash & mask;
+
 		/**
-		 * If the table index is not empty, step through the linked list
-		 * and check if the key is present. If it is, remove it, re-link
-		 * the entries in the list and exit the loop.
+		 * Step along the probe run until an empty slot is found. If the
+		 * key is already present on the way, only its value is replaced.
 		 */
-		if(currentEntry != null) {
-			for(;currentEntry.next != null; currentEntry = currentEntry.next) {
-				if(currentEntry.next.key.equals(key)) {
-					entrySet.remove(currentEntry.next);
-					keySet.remove(currentEntry.next.key);
-					currentEntry.next = currentEntry.next.next;
-					--size;
-					break;
-				}
+		for(Object k; (k = keys[index]) != null; index = (index + 1) & mask) {
+			if(hashes[index] == hash && (k == key || k.equals(key))) {
+				values[index] = value;
+				return;
 			}
 		}
-		
+
 		/**
-		 * Set the new entry's next pointer to the first entry in the list
-		 * or null, then insert the new entry at the beginning of the list.
+		 * A key that has not been migrated yet is taken out of the old
+		 * table, so that it only ever lives in one of the two tables.
 		 */
-		newEntry.next = table[index];
-		table[index] = newEntry;
-		keySet.add(key);
-		entrySet.add(newEntry);
+		int oldIndex = oldIndexOf(key);
+		if(oldIndex >= 0) {
+			removeOld(oldIndex);
+			--size;
+		}
+
+		keys[index] = key;
+		values[index] = value;
+		hashes[index] = hash;
 		++size;
-		
-		if(size > numberOfBuckets) {
+		++modCount;
+
+		if(size > threshold) {
 			growMyHashTable();
 		}
-		
+
 	}
-	
+
+	/**
+	 * Places an entry in the first free slot of its probe run, without
+	 * checking whether the key is already present.
+	 */
+	private void insert(Object key, Object value, int hash) {
+		int index = hash & mask;
+		while(keys[index] != null) {
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		hashes[index] = hash;
+	}
+
+	/**
+	 * Doubles the table. In incremental mode the current table is only
+	 * set aside here and drained by the following operations, so the
+	 * time recorded in the statistics covers the allocation alone.
+	 */
 	private void growMyHashTable() {
-		MyHashEntry<K,V>[] oldTable = table;
-		if(numberOfBuckets > (Integer.MAX_VALUE / 2)){
+		if(keys.length >= MAXIMUM_BUCKETS) {
 			return;
 		}
-		numberOfBuckets *= 2;
-		MyHashEntry<K,V>[] newTable = new MyHashEntry[numberOfBuckets*2];
-		for(int i = 0; i < oldTable.length; i++) {
-			newTable[i] = oldTable[i];
+		long start = (statistics != null) ? System.nanoTime() : 0;
+		resizeTable(keys.length * 2);
+		if(!incrementalResize) {
+			completeMigration();
+		}
+		if(statistics != null) {
+			statistics.recordResize(System.nanoTime() - start);
 		}
-		table = newTable;
+	}
+
+	/**
+	 * Sets the current table aside for migration into a new, empty one.
+	 * Entries are re-inserted at the index given by their cached hash
+	 * code, so no key's hashCode() or equals() is called.
+	 */
+	private void resizeTable(int buckets) {
+		completeMigration();
+		oldKeys = keys;
+		oldValues = values;
+		oldHashes = hashes;
+		oldMask = mask;
+		migrateIndex = 0;
+		allocate(buckets);
 	}
 
 
+	@SuppressWarnings("unchecked")
 	public K remove(K key) {
-		int index = rehash(key.hashCode());
-		MyHashEntry<K,V> e = table[index];
-		MyHashEntry<K,V> removed = null;
-		if (e != null) {
-			for(; e.next != null; e = e.next) {
-				if(e.next.key.equals(key)) {
-					removed = e.next;
-					entrySet.remove(removed);
-					keySet.remove(removed.key);
-					e.next = e.next.next;
-					--size;
-					return removed.key;
+		migrateStep();
+		K removed;
+		int index = indexOf(key);
+		if(index >= 0) {
+			removed = (K) keys[index];
+			deleteSlot(index, null);
+		} else {
+			index = oldIndexOf(key);
+			if(index < 0) {
+				throw new NoSuchElementException("Key not found.");
+			}
+			removed = (K) oldKeys[index];
+			removeOld(index);
+		}
+		--size;
+		++modCount;
+		return removed;
+	}
+
+	/**
+	 * Empties the slot and closes the gap by shifting later entries of
+	 * the same probe run backwards, as long as that does not move an
+	 * entry in front of its home index.
+	 * @param wrapped If not null, collects the keys of the entries that
+	 * were moved from the start of the table around to its end.
+	 */
+	private void deleteSlot(int gap, List<Object> wrapped) {
+		for(int i = (gap + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+			int home = hashes[i] & mask;
+			if(((i - home) & mask) >= ((i - gap) & mask)) {
+				if(wrapped != null && i < gap) {
+					wrapped.add(keys[i]);
 				}
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				hashes[gap] = hashes[i];
+				gap = i;
 			}
 		}
-		throw new java.util.NoSuchElementException("Key not found.");
+		keys[gap] = null;
+		values[gap] = null;
+		hashes[gap] = 0;
 	}
 
 	public void clear() {
-		for(int i = 0; i < table.length; i++) {
-			table[i] = null;
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+			values[i] = null;
 		}
+		oldKeys = null;
+		oldValues = null;
+		oldHashes = null;
 		size = 0;
+		++modCount;
 	}
-	
+
+	/**
+	 * Returns a view of the keys that reads straight from the table;
+	 * nothing is copied, and the view follows later changes to the map.
+	 * Starting an iteration finishes any resize still in progress.
+	 */
 	public Set<K> keySet() {
+		if(keySet == null) {
+			keySet = new KeySet();
+		}
 		return keySet;
 	}
-	
-//	public Set<V> values() {
-//		return values;
-//	}
-	
+
+	/**
+	 * Returns a view of the values, backed by the table like keySet().
+	 */
+	public Collection<V> values() {
+		if(valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
+	}
+
+	/**
+	 * Returns a view of the entries, backed by the table like keySet().
+	 * Setting the value of an entry replaces the value in the map.
+	 */
+	public Set<Map.Entry<K,V>> entrySet() {
+		if(entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Reads one element of a view out of the table arrays.
+	 */
+	private interface SlotReader<E> {
+
+		E read(Object[] keys, Object[] values, int index);
+
+	}
+
+	@SuppressWarnings("unchecked")
+	private final SlotReader<K> keyReader = (keys, values, index) -> (K) keys[index];
+	@SuppressWarnings("unchecked")
+	private final SlotReader<V> valueReader = (keys, values, index) -> (V) values[index];
+	private final SlotReader<Map.Entry<K,V>> entryReader = (keys, values, index) -> new Entry(keys, values, index);
+
+	private class KeySet extends AbstractSet<K> {
+
+		@Override
+		public Iterator<K> iterator() {
+			return new TableIterator<>(keyReader);
+		}
+
+		@Override
+		public Spliterator<K> spliterator() {
+			return new TableSpliterator<>(keyReader, Spliterator.DISTINCT | Spliterator.NONNULL);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+	}
+
+	private class Values extends AbstractCollection<V> {
+
+		@Override
+		public Iterator<V> iterator() {
+			return new TableIterator<>(valueReader);
+		}
+
+		@Override
+		public Spliterator<V> spliterator() {
+			return new TableSpliterator<>(valueReader, 0);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+
+		@Override
+		public Iterator<Map.Entry<K,V>> iterator() {
+			return new TableIterator<>(entryReader);
+		}
+
+		@Override
+		public Spliterator<Map.Entry<K,V>> spliterator() {
+			return new TableSpliterator<>(entryReader, Spliterator.DISTINCT | Spliterator.NONNULL);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) {
+			if(!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+			if(!containsKey(e.getKey())) {
+				return false;
+			}
+			Object value = get((K) e.getKey());
+			return value == null ? e.getValue() == null : value.equals(e.getValue());
+		}
+
+	}
+
+	/**
+	 * An entry read from a slot. Its value is the one in the table when
+	 * the entry was read; setValue() writes through to the map.
+	 */
+	private class Entry extends AbstractMap.SimpleEntry<K,V> {
+
+		private static final long serialVersionUID = 1L;
+
+		@SuppressWarnings("unchecked")
+		public Entry(Object[] keys, Object[] values, int index) {
+			super((K) keys[index], (V) values[index]);
+		}
+
+		@Override
+		public V setValue(V value) {
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+
+	}
+
+	/**
+	 * Walks the table from the first slot to the last. remove() deletes
+	 * the slot last returned, and then looks at that slot again, since
+	 * the backward shift may have moved a later entry into it. An entry
+	 * shifted from the start of the table around to its end has already
+	 * been returned, and is skipped when it is reached a second time.
+	 */
+	private class TableIterator<E> implements Iterator<E> {
+
+		private final SlotReader<E> reader;
+		private int nextIndex;
+		private int lastIndex = -1;
+		private int initCount;
+		private List<Object> returned;
+
+		public TableIterator(SlotReader<E> reader) {
+			this.reader = reader;
+			completeMigration();
+			nextIndex = advance(0);
+			initCount = modCount;
+		}
+
+		private int advance(int index) {
+			while(index < keys.length && (keys[index] == null || wasReturned(keys[index]))) {
+				index++;
+			}
+			return index;
+		}
+
+		private boolean wasReturned(Object key) {
+			if(returned == null) {
+				return false;
+			}
+			for(int i = 0; i < returned.size(); i++) {
+				if(returned.get(i) == key) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < keys.length;
+		}
+
+		@Override
+		public E next() {
+			if(modCount != initCount)
+				throw new ConcurrentModificationException();
+			if(!hasNext())
+				throw new NoSuchElementException();
+			E element = reader.read(keys, values, nextIndex);
+			lastIndex = nextIndex;
+			nextIndex = advance(nextIndex + 1);
+			return element;
+		}
+
+		@Override
+		public void remove() {
+			if(lastIndex < 0)
+				throw new IllegalStateException();
+			if(modCount != initCount)
+				throw new ConcurrentModificationException();
+			if(returned == null) {
+				returned = new ArrayList<>();
+			}
+			deleteSlot(lastIndex, returned);
+			--size;
+			initCount = ++modCount;
+			nextIndex = advance(lastIndex);
+			lastIndex = -1;
+		}
+
+	}
+
+	/**
+	 * Walks a range of slots. Splitting halves the range, so a parallel
+	 * stream over a large map hands each thread its own part of the
+	 * table without copying anything. Structural changes to the map are
+	 * detected once the traversal ends.
+	 */
+	private class TableSpliterator<E> implements Spliterator<E> {
+
+		private final SlotReader<E> reader;
+		private final int characteristics;
+		private final Object[] keys;
+		private final Object[] values;
+		private final int expectedModCount;
+		private int index;
+		private final int fence;
+		private long estimate;
+
+		public TableSpliterator(SlotReader<E> reader, int characteristics) {
+			completeMigration();
+			this.reader = reader;
+			this.characteristics = characteristics;
+			this.keys = MyHashMap.this.keys;
+			this.values = MyHashMap.this.values;
+			this.expectedModCount = modCount;
+			this.index = 0;
+			this.fence = keys.length;
+			this.estimate = size;
+		}
+
+		private TableSpliterator(TableSpliterator<E> parent, int origin, int fence) {
+			this.reader = parent.reader;
+			this.characteristics = parent.characteristics;
+			this.keys = parent.keys;
+			this.values = parent.values;
+			this.expectedModCount = parent.expectedModCount;
+			this.index = origin;
+			this.fence = fence;
+			this.estimate = parent.estimate;
+		}
+
+		@Override
+		public Spliterator<E> trySplit() {
+			int middle = (index + fence) >>> 1;
+			if(middle <= index) {
+				return null;
+			}
+			estimate >>>= 1;
+			TableSpliterator<E> prefix = new TableSpliterator<>(this, index, middle);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super E> action) {
+			while(index < fence) {
+				int i = index++;
+				if(keys[i] != null) {
+					action.accept(reader.read(keys, values, i));
+					if(modCount != expectedModCount)
+						throw new ConcurrentModificationException();
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super E> action) {
+			for(int i = index; i < fence; i++) {
+				if(keys[i] != null) {
+					action.accept(reader.read(keys, values, i));
+				}
+			}
+			index = fence;
+			if(modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			return characteristics;
+		}
+
+	}
+
 }
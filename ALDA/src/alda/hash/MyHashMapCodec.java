@@ -0,0 +1,93 @@
+package alda.hash;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns the keys or values of a MyHashMap into bytes and back, for
+ * MyHashMap.save() and MyHashMap.load(). Both directions are big-endian,
+ * so whatever write() puts out with DataOutput, read() can take back
+ * with the matching ByteBuffer getters.
+ */
+public interface MyHashMapCodec<T> {
+
+	void write(T value, DataOutput out) throws IOException;
+
+	/**
+	 * Reads one value, leaving the buffer positioned after it.
+	 * @throws BufferUnderflowException if the buffer ends before the
+	 * value does.
+	 */
+	T read(ByteBuffer in);
+
+	/**
+	 * Strings as a byte count followed by their UTF-8 bytes.
+	 */
+	MyHashMapCodec<String> STRING = new MyHashMapCodec<String>() {
+
+		@Override
+		public void write(String value, DataOutput out) throws IOException {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		@Override
+		public String read(ByteBuffer in) {
+			int length = in.getInt();
+			if(length < 0 || length > in.remaining()) {
+				throw new BufferUnderflowException();
+			}
+			if(in.hasArray()) {
+				String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+				in.position(in.position() + length);
+				return value;
+			}
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+	};
+
+	/**
+	 * Integers, null included.
+	 */
+	MyHashMapCodec<Integer> INTEGER = new MyHashMapCodec<Integer>() {
+
+		@Override
+		public void write(Integer value, DataOutput out) throws IOException {
+			out.writeBoolean(value != null);
+			if(value != null) {
+				out.writeInt(value);
+			}
+		}
+
+		@Override
+		public Integer read(ByteBuffer in) {
+			return (in.get() != 0) ? Integer.valueOf(in.getInt()) : null;
+		}
+
+	};
+
+	/**
+	 * Writes nothing and reads null, for maps used as sets whose values
+	 * are all null, like the WordSearchPuzzle dictionary.
+	 */
+	MyHashMapCodec<Object> NONE = new MyHashMapCodec<Object>() {
+
+		@Override
+		public void write(Object value, DataOutput out) {
+		}
+
+		@Override
+		public Object read(ByteBuffer in) {
+			return null;
+		}
+
+	};
+
+}
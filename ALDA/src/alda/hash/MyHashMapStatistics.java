@@ -0,0 +1,121 @@
+package alda.hash;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Health statistics of one MyHashMap, created by enableStatistics().
+ *
+ * The map only updates the lookup and resize counters; everything about
+ * the table itself is worked out from the live table each time it is
+ * asked for, so none of it costs anything on the map's hot path. The
+ * map is not thread-safe, and neither are these numbers: read from
+ * another thread, for instance over JMX, they are a close approximation
+ * while the map is being written to.
+ */
+public class MyHashMapStatistics implements MyHashMapStatisticsMXBean {
+
+	/**
+	 * The number of elements in the probe length histogram.
+	 */
+	public static final int HISTOGRAM_LENGTH = 32;
+
+	private final MyHashMap<?,?> map;
+	private long hits;
+	private long misses;
+	private long resizeCount;
+	private long resizeNanos;
+
+	MyHashMapStatistics(MyHashMap<?,?> map) {
+		this.map = map;
+	}
+
+	void recordLookup(boolean found) {
+		if(found) {
+			hits++;
+		} else {
+			misses++;
+		}
+	}
+
+	void recordResize(long nanos) {
+		resizeCount++;
+		resizeNanos += nanos;
+	}
+
+	/**
+	 * Registers these statistics with the platform MBean server, under
+	 * alda.hash:type=MyHashMap,name=<i>name</i>.
+	 * @param name Tells the map apart from any other registered map.
+	 * @return The name the statistics were registered under.
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName("alda.hash:type=MyHashMap,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	@Override
+	public int getSize() {
+		return map.size();
+	}
+
+	@Override
+	public int getBuckets() {
+		return map.buckets();
+	}
+
+	@Override
+	public double getOccupancy() {
+		return (double) map.size() / map.buckets();
+	}
+
+	@Override
+	public int getLongestProbe() {
+		return map.probeLengths(new long[1]);
+	}
+
+	@Override
+	public long[] getProbeLengthHistogram() {
+		long[] histogram = new long[HISTOGRAM_LENGTH];
+		map.probeLengths(histogram);
+		return histogram;
+	}
+
+	@Override
+	public long getResizeCount() {
+		return resizeCount;
+	}
+
+	@Override
+	public long getResizeNanos() {
+		return resizeNanos;
+	}
+
+	@Override
+	public long getHits() {
+		return hits;
+	}
+
+	@Override
+	public long getMisses() {
+		return misses;
+	}
+
+	@Override
+	public void reset() {
+		hits = 0;
+		misses = 0;
+		resizeCount = 0;
+		resizeNanos = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "size: " + getSize() + ", buckets: " + getBuckets() + ", longest probe: " + getLongestProbe()
+				+ ", resizes: " + resizeCount + " (" + resizeNanos / 1000 + " us), hits: " + hits + ", misses: " + misses;
+	}
+
+}
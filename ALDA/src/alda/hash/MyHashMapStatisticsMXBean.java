@@ -0,0 +1,61 @@
+package alda.hash;
+
+/**
+ * Management interface of MyHashMapStatistics, so that the health of a
+ * map can be read at runtime from JConsole or any other JMX client.
+ */
+public interface MyHashMapStatisticsMXBean {
+
+	/**
+	 * @return The number of entries in the map.
+	 */
+	int getSize();
+
+	/**
+	 * @return The number of slots in the table.
+	 */
+	int getBuckets();
+
+	/**
+	 * @return The fraction of slots that hold an entry.
+	 */
+	double getOccupancy();
+
+	/**
+	 * @return The longest distance, in slots, between an entry and its
+	 * home slot; a lookup of that key has to probe one slot more.
+	 */
+	int getLongestProbe();
+
+	/**
+	 * @return The number of entries at each probe distance from their
+	 * home slot. The last element counts every longer distance as well.
+	 */
+	long[] getProbeLengthHistogram();
+
+	/**
+	 * @return The number of times the table has grown.
+	 */
+	long getResizeCount();
+
+	/**
+	 * @return The total time spent growing the table, in nanoseconds.
+	 */
+	long getResizeNanos();
+
+	/**
+	 * @return The number of lookups that found their key.
+	 */
+	long getHits();
+
+	/**
+	 * @return The number of lookups that did not find their key.
+	 */
+	long getMisses();
+
+	/**
+	 * Sets the resize and lookup counters back to zero.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,307 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.*;
+
+public class MyHashMapTest {
+
+	private static final int MANY_KEYS = 10000;
+
+	private MyHashMap<String, Integer> map = new MyHashMap<>(4);
+
+	private void putMany() {
+		for (int i = 0; i < MANY_KEYS; i++) {
+			map.put("key" + i, i);
+		}
+	}
+
+	@Test
+	public void testPutAndGet() {
+		putMany();
+		assertEquals(MANY_KEYS, map.size());
+		for (int i = 0; i < MANY_KEYS; i++) {
+			assertTrue(map.containsKey("key" + i));
+			assertEquals(Integer.valueOf(i), map.get("key" + i));
+		}
+		assertFalse(map.containsKey("key" + MANY_KEYS));
+	}
+
+	@Test
+	public void testPutReplacesValue() {
+		map.put("A", 1);
+		map.put("A", 2);
+		assertEquals(1, map.size());
+		assertEquals(Integer.valueOf(2), map.get("A"));
+	}
+
+	@Test
+	public void testNullKeyIsIgnored() {
+		map.put(null, 1);
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey(null));
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testGetMissingKey() {
+		map.get("missing");
+	}
+
+	@Test
+	public void testRemove() {
+		putMany();
+		for (int i = 0; i < MANY_KEYS; i += 2) {
+			assertEquals("key" + i, map.remove("key" + i));
+		}
+		assertEquals(MANY_KEYS / 2, map.size());
+		for (int i = 0; i < MANY_KEYS; i++) {
+			assertEquals(i % 2 == 1, map.containsKey("key" + i));
+		}
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testRemoveMissingKey() {
+		map.put("A", 1);
+		map.remove("B");
+	}
+
+	@Test
+	public void testClear() {
+		putMany();
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.containsKey("key1"));
+		assertEquals(0, map.keySet().size());
+	}
+
+	@Test
+	public void testKeySetFollowsTable() {
+		putMany();
+		Set<String> keys = map.keySet();
+		assertEquals(MANY_KEYS, keys.size());
+		assertEquals(MANY_KEYS, new HashSet<>(keys).size());
+		assertTrue(keys.contains("key42"));
+		map.remove("key42");
+		assertFalse(keys.contains("key42"));
+		assertEquals(MANY_KEYS - 1, keys.size());
+	}
+
+	@Test
+	public void testKeySetIteratorRemove() {
+		putMany();
+		Set<String> seen = new HashSet<>();
+		for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+			String key = it.next();
+			assertTrue(seen.add(key));
+			if (map.get(key) % 3 != 0) {
+				it.remove();
+			}
+		}
+		assertEquals(MANY_KEYS, seen.size());
+		assertEquals((MANY_KEYS + 2) / 3, map.size());
+		for (int i = 0; i < MANY_KEYS; i++) {
+			assertEquals(i % 3 == 0, map.containsKey("key" + i));
+		}
+		map.keySet().remove("key0");
+		assertFalse(map.containsKey("key0"));
+	}
+
+	@Test
+	public void testIteratorRemoveAcrossTableEnd() {
+		// Små tabeller, så att många sonderingskedjor går runt tabellslutet.
+		Random random = new Random(5);
+		for (int round = 0; round < 200; round++) {
+			MyHashMap<Integer, Integer> small = new MyHashMap<>(16);
+			Set<Integer> expected = new HashSet<>();
+			while (expected.size() < 12) {
+				int key = random.nextInt(1000);
+				small.put(key, key);
+				expected.add(key);
+			}
+			Set<Integer> seen = new HashSet<>();
+			for (Iterator<Integer> it = small.values().iterator(); it.hasNext();) {
+				int value = it.next();
+				assertTrue(seen.add(value));
+				if (random.nextBoolean()) {
+					it.remove();
+					expected.remove(value);
+				}
+			}
+			assertEquals(12, seen.size());
+			assertEquals(expected, new HashSet<>(small.keySet()));
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIteratorRemoveTwice() {
+		map.put("A", 1);
+		Iterator<String> it = map.keySet().iterator();
+		it.next();
+		it.remove();
+		it.remove();
+	}
+
+	@Test
+	public void testExpectedSizeOnPowerOfTwo() {
+		assertEquals(16, MyHashMap.withExpectedSize(12).buckets());
+		assertEquals(32, MyHashMap.withExpectedSize(13).buckets());
+	}
+
+	@Test
+	public void testIncrementalResize() {
+		map = new MyHashMap<>(4, true);
+		for (int i = 0; i < MANY_KEYS; i++) {
+			map.put("key" + i, i);
+			assertTrue(map.containsKey("key" + (i / 2)));
+		}
+		for (int i = 0; i < MANY_KEYS; i += 3) {
+			map.put("key" + i, -i);
+		}
+		for (int i = 1; i < MANY_KEYS; i += 3) {
+			map.remove("key" + i);
+		}
+		for (int i = 0; i < MANY_KEYS; i++) {
+			switch (i % 3) {
+			case 0:
+				assertEquals(Integer.valueOf(-i), map.get("key" + i));
+				break;
+			case 1:
+				assertFalse(map.containsKey("key" + i));
+				break;
+			default:
+				assertEquals(Integer.valueOf(i), map.get("key" + i));
+			}
+		}
+		assertEquals(MANY_KEYS - (MANY_KEYS + 1) / 3, map.size());
+		assertEquals(map.size(), new HashSet<>(map.keySet()).size());
+	}
+
+	@Test
+	public void testPutAll() {
+		List<String> keys = new ArrayList<>();
+		for (int i = 0; i < MANY_KEYS; i++) {
+			keys.add("key" + i);
+		}
+		map.put("key0", 1);
+		map.putAll(keys, 7);
+		assertEquals(MANY_KEYS, map.size());
+		for (String key : keys) {
+			assertEquals(Integer.valueOf(7), map.get(key));
+		}
+	}
+
+	@Test
+	public void testWithExpectedSize() {
+		map = MyHashMap.withExpectedSize(MANY_KEYS);
+		map.ensureCapacity(MANY_KEYS / 2);
+		putMany();
+		assertEquals(MANY_KEYS, map.size());
+		assertTrue(map.containsKey("key" + (MANY_KEYS - 1)));
+	}
+
+	@Test
+	public void testStatistics() {
+		MyHashMapStatistics statistics = map.enableStatistics();
+		putMany();
+		assertTrue(map.containsKey("key0"));
+		assertFalse(map.containsKey("missing"));
+		assertEquals(1, statistics.getHits());
+		assertEquals(1, statistics.getMisses());
+		assertTrue(statistics.getResizeCount() > 0);
+		long entries = 0;
+		for (long count : statistics.getProbeLengthHistogram()) {
+			entries += count;
+		}
+		assertEquals(MANY_KEYS, entries);
+	}
+
+	@Test
+	public void testValuesAndEntries() {
+		putMany();
+		long sum = 0;
+		for (int value : map.values()) {
+			sum += value;
+		}
+		assertEquals((long) MANY_KEYS * (MANY_KEYS - 1) / 2, sum);
+		for (Map.Entry<String, Integer> entry : map.entrySet()) {
+			assertEquals(entry.getKey(), "key" + entry.getValue());
+			entry.setValue(-entry.getValue());
+		}
+		assertEquals(Integer.valueOf(-5), map.get("key5"));
+		assertTrue(map.entrySet().contains(new AbstractMap.SimpleEntry<>("key5", -5)));
+	}
+
+	@Test
+	public void testParallelStream() {
+		putMany();
+		assertEquals(MANY_KEYS, map.keySet().parallelStream().distinct().count());
+		assertEquals((long) MANY_KEYS * (MANY_KEYS - 1) / 2, map.values().parallelStream().mapToLong(Integer::longValue).sum());
+		assertEquals(MANY_KEYS, map.entrySet().parallelStream().filter(e -> e.getKey().equals("key" + e.getValue())).count());
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		putMany();
+		map.put("null value", null);
+		File file = File.createTempFile("snapshot", ".bin");
+		file.deleteOnExit();
+		map.save(file.getPath(), MyHashMapCodec.STRING, MyHashMapCodec.INTEGER);
+		MyHashMap<String, Integer> loaded = MyHashMap.load(file.getPath(), MyHashMapCodec.STRING, MyHashMapCodec.INTEGER);
+		assertEquals(map.size(), loaded.size());
+		for (String key : map.keySet()) {
+			assertEquals(map.get(key), loaded.get(key));
+		}
+		loaded.put("one more", 1);
+		loaded.remove("key0");
+		assertEquals(map.size(), loaded.size());
+	}
+
+	@Test
+	public void testTruncatedSnapshot() throws IOException {
+		putMany();
+		File file = File.createTempFile("snapshot", ".bin");
+		file.deleteOnExit();
+		map.save(file.getPath(), MyHashMapCodec.STRING, MyHashMapCodec.INTEGER);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		// Varje kapning mitt i tabellen eller mitt i en nyckel ska ge IOException.
+		for (int length = 0; length < bytes.length; length += 1 + length / 64) {
+			Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+			try {
+				MyHashMap.load(file.getPath(), MyHashMapCodec.STRING, MyHashMapCodec.INTEGER);
+				fail("Loaded a snapshot cut at " + length + " bytes.");
+			} catch (IOException e) {
+				// väntat
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorruptSnapshot() throws IOException {
+		map.put("A", 1);
+		File file = File.createTempFile("snapshot", ".bin");
+		file.deleteOnExit();
+		map.save(file.getPath(), MyHashMapCodec.STRING, MyHashMapCodec.INTEGER);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		// Den enda nyckelns längd ligger direkt efter tabellen; gör den negativ.
+		int buckets = 4;
+		int keyStart = 16 + 4 * buckets + (buckets + 7) / 8;
+		bytes[keyStart] = (byte) 0x80;
+		Files.write(file.toPath(), bytes);
+		MyHashMap.load(file.getPath(), MyHashMapCodec.STRING, MyHashMapCodec.INTEGER);
+	}
+
+}
@@ -0,0 +1,243 @@
+package alda.hash;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+/**
+ * Hash map from objects to int, laid out like MyHashMap, with the hash
+ * codes of the keys cached next to them. The values live in an int
+ * array, so they are never boxed on put, get or iteration; this suits
+ * counters and numbering objects, for instance graph vertices.
+ *
+ * Null keys are not supported.
+ */
+public class ObjectIntMap<K> {
+
+	/**
+	 * Receives the entries of the map from forEach().
+	 */
+	public interface EntryConsumer<K> {
+
+		void accept(K key, int value);
+
+	}
+
+	private static final int DEFAULT_BUCKETS = 16;
+	private static final int MAXIMUM_BUCKETS = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private Object[] keys;
+	private int[] values;
+	private int[] hashes;
+	private int mask;
+	private int threshold;
+	private int size = 0;
+	private int modCount = 0;
+
+	public ObjectIntMap() {
+		this(DEFAULT_BUCKETS);
+	}
+
+	/**
+	 * @param i The initial number of buckets.
+	 */
+	public ObjectIntMap(int i) {
+		int n = 2;
+		while(n < i && n < MAXIMUM_BUCKETS) {
+			n <<= 1;
+		}
+		allocate(n);
+	}
+
+	private void allocate(int buckets) {
+		keys = new Object[buckets];
+		values = new int[buckets];
+		hashes = new int[buckets];
+		mask = buckets - 1;
+		threshold = (int) (buckets * LOAD_FACTOR);
+	}
+
+	private static int rehash(int i) {
+		i *= 0x9E3779B9;
+		return i ^ (i >>> 16);
+	}
+
+	/**
+	 * @return The slot holding the key, or -1 if it is not present.
+	 */
+	private int indexOf(Object key) {
+		if(key == null) {
+			return -1;
+		}
+		int hash = rehash(key.hashCode());
+		for(int i = hash & mask; ; i = (i + 1) & mask) {
+			Object k = keys[i];
+			if(k == null) {
+				return -1;
+			}
+			if(hashes[i] == hash && (k == key || k.equals(key))) {
+				return i;
+			}
+		}
+	}
+
+
+	public int size() {
+		return size;
+	}
+
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+
+	public int get(K key) {
+		int index = indexOf(key);
+		if(index < 0) {
+			throw new NoSuchElementException("Key not found.");
+		}
+		return values[index];
+	}
+
+	/**
+	 * @return The value of the key, or defaultValue if it is not present.
+	 */
+	public int getOrDefault(K key, int defaultValue) {
+		int index = indexOf(key);
+		return (index >= 0) ? values[index] : defaultValue;
+	}
+
+
+	public void put(K key, int value) {
+		if(key != null) {
+			int index = slotFor(key);
+			values[index] = value;
+			afterInsert();
+		}
+	}
+
+	/**
+	 * Adds delta to the value of the key, which counts as 0 if the key
+	 * is not present yet.
+	 * @return The new value.
+	 */
+	public int addTo(K key, int delta) {
+		if(key == null) {
+			throw new NullPointerException("Null keys are not supported.");
+		}
+		int index = slotFor(key);
+		int value = values[index] += delta;
+		afterInsert();
+		return value;
+	}
+
+	/**
+	 * Finds the slot of the key, claiming an empty one with the value 0
+	 * if the key is not present; afterInsert() must follow.
+	 */
+	private int slotFor(K key) {
+		int hash = rehash(key.hashCode());
+		int index = hash & mask;
+		for(Object k; (k = keys[index]) != null; index = (index + 1) & mask) {
+			if(hashes[index] == hash && (k == key || k.equals(key))) {
+				return index;
+			}
+		}
+		keys[index] = key;
+		values[index] = 0;
+		hashes[index] = hash;
+		++size;
+		++modCount;
+		return index;
+	}
+
+	private void afterInsert() {
+		if(size > threshold) {
+			growMyHashTable();
+		}
+	}
+
+	private void growMyHashTable() {
+		if(keys.length >= MAXIMUM_BUCKETS) {
+			return;
+		}
+		Object[] oldKeys = keys;
+		int[] oldValues = values;
+		int[] oldHashes = hashes;
+		allocate(keys.length * 2);
+		for(int i = 0; i < oldKeys.length; i++) {
+			if(oldKeys[i] != null) {
+				int index = oldHashes[i] & mask;
+				while(keys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+				hashes[index] = oldHashes[i];
+			}
+		}
+	}
+
+	/**
+	 * @return The value that was mapped to the key.
+	 */
+	public int remove(K key) {
+		int index = indexOf(key);
+		if(index < 0) {
+			throw new NoSuchElementException("Key not found.");
+		}
+		int removed = values[index];
+		deleteSlot(index);
+		--size;
+		++modCount;
+		return removed;
+	}
+
+	/**
+	 * Empties the slot and shifts later entries of the same probe run
+	 * backwards, as in MyHashMap.
+	 */
+	private void deleteSlot(int gap) {
+		for(int i = (gap + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+			int home = hashes[i] & mask;
+			if(((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				hashes[gap] = hashes[i];
+				gap = i;
+			}
+		}
+		keys[gap] = null;
+	}
+
+	public void clear() {
+		for(int i = 0; i < keys.length; i++) {
+			keys[i] = null;
+		}
+		size = 0;
+		++modCount;
+	}
+
+	/**
+	 * Passes every entry to the consumer, in table order.
+	 * @throws ConcurrentModificationException if the consumer changes the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(EntryConsumer<? super K> consumer) {
+		int initCount = modCount;
+		for(int i = 0; i < keys.length; i++) {
+			if(modCount != initCount)
+				throw new ConcurrentModificationException();
+			if(keys[i] != null) {
+				consumer.accept((K) keys[i], values[i]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ObjectIntMapTest {
+
+	@Test
+	public void testCounting() {
+		ObjectIntMap<String> counts = new ObjectIntMap<>(4);
+		IntObjectMap<String> names = new IntObjectMap<>(4);
+		Map<String, Integer> expected = new HashMap<>();
+		Random random = new Random(11);
+		for (int i = 0; i < 50000; i++) {
+			String word = "w" + random.nextInt(500);
+			counts.addTo(word, 1);
+			expected.merge(word, 1, Integer::sum);
+			if (i % 7 == 0 && counts.containsKey(word)) {
+				assertEquals((int) expected.remove(word), counts.remove(word));
+			}
+		}
+		assertEquals(expected.size(), counts.size());
+		counts.forEach((word, count) -> {
+			assertEquals((int) expected.get(word), count);
+			names.put(count, word);
+		});
+		names.forEach((count, word) -> assertEquals(count, counts.get(word)));
+	}
+
+}
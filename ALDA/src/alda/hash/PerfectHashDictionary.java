@@ -0,0 +1,356 @@
+package alda.hash;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only dictionary built around a minimal perfect hash function, in
+ * the hash-and-displace style of CHD. Every word has a slot of its own in
+ * a table of exactly as many slots as there are words, so a lookup
+ * computes one slot and compares the candidate with the single word
+ * stored there; there are no collisions and no probing.
+ *
+ * The function is computed from the String hash and the length of a
+ * word, so the grid scanners' rolling hash is used as is and a lookup
+ * costs the same for a long candidate as for a short one. Words sharing
+ * both with an earlier word cannot be told apart by the function; they
+ * are kept in a small CompactStringSet instead, which is only consulted
+ * when the slot of a candidate is marked as shared.
+ *
+ * The words are hashed into buckets of about BUCKET_SIZE words each. The
+ * buckets are placed largest first: for each one a displacement is
+ * searched for that sends all of its words to free slots, and buckets
+ * holding a single word simply take the next free slot, which is stored
+ * in place of the displacement. The function itself is one int per
+ * bucket, about 32 / BUCKET_SIZE bits per word. The words are stored in
+ * slot order in one arena, like CompactStringSet, with one int offset
+ * per word.
+ */
+public class PerfectHashDictionary implements WordDictionary {
+
+	private static final int BUCKET_SIZE = 5;
+	private static final int MAXIMUM_DISPLACEMENT = 1 << 24;
+	private static final int MAXIMUM_ATTEMPTS = 16;
+
+	private final int size;
+	private final long seed;
+	private final int[] displacements;	// >= 0: displacement; < 0: -(slot + 1) of a single word
+	private final int[] starts;			// word in slot s is arena[starts[s]..starts[s + 1])
+	private final long[] shared;		// bit s: other words have the hash and length of slot s
+	private final CompactStringSet overflow = new CompactStringSet();
+	private final byte[] latin1;		// the arena if every character fits in a byte, else null
+	private final char[] utf16;
+	private final int longestWord;
+
+	/**
+	 * Builds the hash function for the given words. Duplicates are
+	 * stored once.
+	 */
+	public PerfectHashDictionary(Collection<? extends CharSequence> words) {
+		Set<String> distinct = new HashSet<>();
+		Map<Long, String> byKey = new HashMap<>();
+		List<String> list = new ArrayList<>();
+		List<String> sharing = new ArrayList<>();
+		for(CharSequence word : words) {
+			String s = word.toString();
+			if(distinct.add(s)) {
+				String first = byKey.putIfAbsent(keyOf(s.hashCode(), s.length()), s);
+				if(first == null) {
+					list.add(s);
+				} else {
+					overflow.add(s);
+					sharing.add(first);
+				}
+			}
+		}
+		size = list.size();
+		displacements = new int[Math.max(1, (size + BUCKET_SIZE - 1) / BUCKET_SIZE)];
+
+		int[] slotOf = null;
+		long s = 0x5DEECE66DL;
+		for(int attempt = 0; slotOf == null; attempt++) {
+			if(attempt == MAXIMUM_ATTEMPTS) {
+				throw new IllegalStateException("No perfect hash function found.");
+			}
+			s = mix(s + attempt);
+			slotOf = build(list, s);
+		}
+		seed = s;
+
+		int longest = 0;
+		int arenaLength = 0;
+		boolean wide = false;
+		String[] bySlot = new String[size];
+		shared = new long[(size + 63) / 64];
+		for(int i = 0; i < size; i++) {
+			String word = list.get(i);
+			bySlot[slotOf[i]] = word;
+			arenaLength += word.length();
+			longest = Math.max(longest, word.length());
+			for(int c = 0; c < word.length() && !wide; c++) {
+				wide = word.charAt(c) > 0xFF;
+			}
+		}
+		longestWord = Math.max(longest, overflow.longestWord());
+		starts = new int[size + 1];
+		latin1 = wide ? null : new byte[arenaLength];
+		utf16 = wide ? new char[arenaLength] : null;
+		int position = 0;
+		for(int slot = 0; slot < size; slot++) {
+			starts[slot] = position;
+			String word = bySlot[slot];
+			for(int c = 0; c < word.length(); c++, position++) {
+				if(wide) {
+					utf16[position] = word.charAt(c);
+				} else {
+					latin1[position] = (byte) word.charAt(c);
+				}
+			}
+		}
+		starts[size] = position;
+		for(String word : sharing) {
+			int slot = slotOf(hash(word.hashCode(), word.length(), seed));
+			shared[slot >>> 6] |= 1L << slot;
+		}
+		overflow.trimToSize();
+	}
+
+	/**
+	 * Reads a word list, one word per line.
+	 */
+	public static PerfectHashDictionary fromLines(String filename) throws IOException {
+		List<String> words = new ArrayList<>();
+		try(BufferedReader inputBuffer = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8)) {
+			for(String entry = inputBuffer.readLine(); entry != null; entry = inputBuffer.readLine()) {
+				words.add(entry);
+			}
+		}
+		return new PerfectHashDictionary(words);
+	}
+
+	/**
+	 * Tries to place every word with the given seed.
+	 * @return The slot of each word, or null if some bucket could not
+	 * be placed.
+	 */
+	private int[] build(List<String> words, long seed) {
+		int buckets = displacements.length;
+		long[] hashes = new long[size];
+		int[] bucketSizes = new int[buckets];
+		for(int i = 0; i < size; i++) {
+			String word = words.get(i);
+			hashes[i] = hash(word.hashCode(), word.length(), seed);
+			bucketSizes[bucketOf(hashes[i], buckets)]++;
+		}
+
+		// Counting sort of the words by bucket, and of the buckets by size.
+		int[] bucketStart = new int[buckets + 1];
+		for(int b = 0; b < buckets; b++) {
+			bucketStart[b + 1] = bucketStart[b] + bucketSizes[b];
+		}
+		int[] members = new int[size];
+		int[] fill = bucketStart.clone();
+		for(int i = 0; i < size; i++) {
+			members[fill[bucketOf(hashes[i], buckets)]++] = i;
+		}
+		int largest = 0;
+		for(int b = 0; b < buckets; b++) {
+			largest = Math.max(largest, bucketSizes[b]);
+		}
+		int[] sizeStart = new int[largest + 2];
+		for(int b = 0; b < buckets; b++) {
+			sizeStart[largest - bucketSizes[b] + 1]++;
+		}
+		for(int k = 0; k <= largest; k++) {
+			sizeStart[k + 1] += sizeStart[k];
+		}
+		int[] order = new int[buckets];
+		for(int b = 0; b < buckets; b++) {
+			order[sizeStart[largest - bucketSizes[b]]++] = b;
+		}
+
+		int[] slotOf = new int[size];
+		boolean[] taken = new boolean[size];
+		int[] candidate = new int[largest];
+		int nextFree = 0;
+		for(int b : order) {
+			int count = bucketSizes[b];
+			int first = bucketStart[b];
+			if(count == 0) {
+				displacements[b] = 0;
+			} else if(count == 1) {
+				while(taken[nextFree]) {
+					nextFree++;
+				}
+				taken[nextFree] = true;
+				slotOf[members[first]] = nextFree;
+				displacements[b] = -(nextFree + 1);
+			} else {
+				int displacement = 0;
+				search:
+				for(;; displacement++) {
+					if(displacement == MAXIMUM_DISPLACEMENT) {
+						return null;
+					}
+					for(int k = 0; k < count; k++) {
+						int slot = slotOf(hashes[members[first + k]], displacement, size);
+						if(taken[slot]) {
+							continue search;
+						}
+						for(int j = 0; j < k; j++) {
+							if(candidate[j] == slot) {
+								continue search;
+							}
+						}
+						candidate[k] = slot;
+					}
+					break;
+				}
+				for(int k = 0; k < count; k++) {
+					taken[candidate[k]] = true;
+					slotOf[members[first + k]] = candidate[k];
+				}
+				displacements[b] = displacement;
+			}
+		}
+		return slotOf;
+	}
+
+	/**
+	 * The finalizer of MurmurHash3.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ (h >>> 33);
+	}
+
+	/**
+	 * The String hash and the length of a word as one key. No two words
+	 * in the function share a key.
+	 */
+	private static long keyOf(int hash, int length) {
+		return ((long) length << 32) | (hash & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Spreads the key over all 64 bits. mix() is a bijection, so distinct
+	 * keys keep distinct hashes.
+	 */
+	private static long hash(int hash, int length, long seed) {
+		return mix(keyOf(hash, length) ^ seed);
+	}
+
+	/**
+	 * Maps the high half of the hash onto [0, n) with a multiplication
+	 * instead of a division.
+	 */
+	private static int reduce(long h, int n) {
+		return (int) (((h >>> 32) * n) >>> 32);
+	}
+
+	private static int bucketOf(long hash, int buckets) {
+		return reduce(hash, buckets);
+	}
+
+	private static int slotOf(long hash, int displacement, int size) {
+		return reduce(mix(hash + displacement * (hash << 1 | 1)), size);
+	}
+
+	private int slotOf(long hash) {
+		int d = displacements[bucketOf(hash, displacements.length)];
+		return (d < 0) ? -(d + 1) : slotOf(hash, d, size);
+	}
+
+	public int size() {
+		return size + overflow.size();
+	}
+
+	/**
+	 * @return The length of the longest word.
+	 */
+	public int longestWord() {
+		return longestWord;
+	}
+
+	/**
+	 * @return The number of bytes taken by the hash function alone.
+	 */
+	public long functionSizeInBytes() {
+		return 4L * displacements.length + 8L * shared.length;
+	}
+
+	@Override
+	public boolean contains(CharSequence word) {
+		if(size == 0 || word.length() > longestWord) {
+			return false;
+		}
+		int hash = 0;
+		for(int i = 0; i < word.length(); i++) {
+			hash = 31 * hash + word.charAt(i);
+		}
+		int slot = slotOf(hash(hash, word.length(), seed));
+		return matches(slot, word) || (isShared(slot) && overflow.contains(word));
+	}
+
+	@Override
+	public boolean contains(int hash, char[] chars, int offset, int length) {
+		if(size == 0 || length > longestWord) {
+			return false;
+		}
+		int slot = slotOf(hash(hash, length, seed));
+		return matches(slot, chars, offset, length) || (isShared(slot) && overflow.contains(hash, chars, offset, length));
+	}
+
+	private boolean isShared(int slot) {
+		return (shared[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	private boolean matches(int slot, CharSequence word) {
+		int start = starts[slot];
+		if(starts[slot + 1] - start != word.length()) {
+			return false;
+		}
+		for(int i = 0; i < word.length(); i++) {
+			char c = (latin1 != null) ? (char) (latin1[start + i] & 0xFF) : utf16[start + i];
+			if(c != word.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean matches(int slot, char[] chars, int offset, int length) {
+		int start = starts[slot];
+		if(starts[slot + 1] - start != length) {
+			return false;
+		}
+		if(latin1 != null) {
+			for(int i = 0; i < length; i++) {
+				if((latin1[start + i] & 0xFF) != chars[offset + i]) {
+					return false;
+				}
+			}
+		} else {
+			for(int i = 0; i < length; i++) {
+				if(utf16[start + i] != chars[offset + i]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+}
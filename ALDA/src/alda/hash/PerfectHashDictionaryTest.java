@@ -0,0 +1,56 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PerfectHashDictionaryTest {
+
+	@Test
+	public void testEveryWordIsFound() {
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 20000; i++) {
+			words.add("word" + i);
+		}
+		words.add("word7");
+		PerfectHashDictionary dictionary = new PerfectHashDictionary(words);
+		assertEquals(20000, dictionary.size());
+		for (String word : words) {
+			assertTrue(dictionary.contains(word));
+			char[] chars = ("#" + word).toCharArray();
+			assertTrue(dictionary.contains(chars, 1, chars.length - 1));
+		}
+		for (int i = 0; i < 20000; i++) {
+			assertFalse(dictionary.contains("other" + i));
+		}
+		// at most eight bits of hash function per word
+		assertTrue(dictionary.functionSizeInBytes() <= dictionary.size());
+	}
+
+	@Test
+	public void testSmallAndWide() {
+		assertFalse(new PerfectHashDictionary(new ArrayList<String>()).contains("a"));
+		PerfectHashDictionary dictionary = new PerfectHashDictionary(Arrays.asList("ą", "öl", "b"));
+		assertTrue(dictionary.contains("ą"));
+		assertTrue(dictionary.contains("öl"));
+		assertTrue(dictionary.contains("b"));
+		assertFalse(dictionary.contains("a"));
+		assertEquals(2, dictionary.longestWord());
+	}
+
+	@Test
+	public void testSameStringHash() {
+		// "Aa" and "BB" have the same hash code and length
+		PerfectHashDictionary dictionary = new PerfectHashDictionary(Arrays.asList("Aa", "BB", "AaAa", "BBBB", "AaBB"));
+		assertEquals(5, dictionary.size());
+		for (String word : Arrays.asList("Aa", "BB", "AaAa", "BBBB", "AaBB")) {
+			assertTrue(dictionary.contains(word));
+		}
+		assertFalse(dictionary.contains("BBAa"));
+	}
+
+}
@@ -0,0 +1,109 @@
+package alda.hash;
+
+import java.util.Arrays;
+
+/**
+ * Compact store for the words found in a grid, filled as a WordSink.
+ * Every distinct word is kept once, in a CompactStringSet, and each match
+ * takes one long for its starting cell, one int for the number of its
+ * word and one byte for its direction: 13 bytes, where a Word takes well
+ * over a hundred with its String and its two coordinate arrays.
+ */
+public class WordBuffer implements WordSearchPuzzle.WordSink {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private final CompactStringSet words = new CompactStringSet();
+	private long[] starts = new long[DEFAULT_CAPACITY];		// row << 32 | column
+	private int[] wordIds = new int[DEFAULT_CAPACITY];
+	private byte[] directions = new byte[DEFAULT_CAPACITY];	// (rowStep + 1) * 3 + columnStep + 1
+	private int size = 0;
+
+	@Override
+	public void found(String word, int startRow, int startColumn, int endRow, int endColumn) {
+		if(size == wordIds.length) {
+			int capacity = size * 2;
+			starts = Arrays.copyOf(starts, capacity);
+			wordIds = Arrays.copyOf(wordIds, capacity);
+			directions = Arrays.copyOf(directions, capacity);
+		}
+		starts[size] = ((long) startRow << 32) | (startColumn & 0xFFFFFFFFL);
+		wordIds[size] = words.intern(word);
+		directions[size] = (byte) ((Integer.signum(endRow - startRow) + 1) * 3 + Integer.signum(endColumn - startColumn) + 1);
+		size++;
+	}
+
+	/**
+	 * @return The number of matches, counting every occurrence.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return The distinct words found; a match's wordId() is the number
+	 * of its word in this set.
+	 */
+	public CompactStringSet words() {
+		return words;
+	}
+
+	private void check(int match) {
+		if(match < 0 || match >= size) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	public int wordId(int match) {
+		check(match);
+		return wordIds[match];
+	}
+
+	public String word(int match) {
+		return words.get(wordId(match));
+	}
+
+	public int startRow(int match) {
+		check(match);
+		return (int) (starts[match] >> 32);
+	}
+
+	public int startColumn(int match) {
+		check(match);
+		return (int) starts[match];
+	}
+
+	public int endRow(int match) {
+		return startRow(match) + (directions[match] / 3 - 1) * (words.length(wordIds[match]) - 1);
+	}
+
+	public int endColumn(int match) {
+		return startColumn(match) + (directions[match] % 3 - 1) * (words.length(wordIds[match]) - 1);
+	}
+
+	/**
+	 * @return The match as a Word, created on every call.
+	 */
+	public WordSearchPuzzle.Word get(int match) {
+		return new WordSearchPuzzle.Word(word(match),
+				new int[] {startRow(match), startColumn(match)}, new int[] {endRow(match), endColumn(match)});
+	}
+
+	/**
+	 * Hands every match, in the order they were found, to another sink.
+	 */
+	public void forEach(WordSearchPuzzle.WordSink sink) {
+		for(int match = 0; match < size; match++) {
+			sink.found(word(match), startRow(match), startColumn(match), endRow(match), endColumn(match));
+		}
+	}
+
+	/**
+	 * Forgets the matches but keeps the words, so that a buffer reused
+	 * for another grid only stores the words that are new to it.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+}
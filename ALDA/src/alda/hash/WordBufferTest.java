@@ -0,0 +1,46 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class WordBufferTest {
+
+	private WordBuffer buffer = new WordBuffer();
+
+	@Test
+	public void testFoundWordsAreKept() {
+		buffer.found("word", 3, 0, 0, 0);
+		buffer.found("drow", 0, 3, 3, 0);
+		buffer.found("word", 10, 12, 10, 15);
+		for (int i = 0; i < 100; i++) {
+			buffer.found("other", i, 4, i, 0);
+		}
+		assertEquals(103, buffer.size());
+		assertEquals(3, buffer.words().size());
+		assertEquals(buffer.wordId(0), buffer.wordId(2));
+		assertEquals("drow", buffer.word(1));
+		assertEquals("drow (0:3) - (3:0)", buffer.get(1).toString());
+		assertEquals("word (10:12) - (10:15)", buffer.get(2).toString());
+		assertEquals("other (99:4) - (99:0)", buffer.get(102).toString());
+
+		List<String> replayed = new ArrayList<>();
+		buffer.forEach((word, startRow, startColumn, endRow, endColumn) -> replayed.add(word));
+		assertEquals(103, replayed.size());
+		assertEquals("word", replayed.get(0));
+
+		buffer.clear();
+		assertEquals(0, buffer.size());
+		assertEquals(3, buffer.words().size());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNoSuchMatch() {
+		buffer.found("word", 3, 0, 0, 0);
+		buffer.startRow(1);
+	}
+
+}
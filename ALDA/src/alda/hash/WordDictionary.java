@@ -0,0 +1,48 @@
+package alda.hash;
+
+/**
+ * Read-only word lookup used by the WordSearchPuzzle grid scanners.
+ * Keeping the scanners behind this interface lets the dictionary be
+ * backed by a MyHashMap or by a prebuilt index without changing them.
+ */
+public interface WordDictionary {
+
+	/**
+	 * @param word The candidate, already in dictionary case.
+	 * @return true if the word is in the dictionary.
+	 */
+	boolean contains(CharSequence word);
+
+	/**
+	 * Looks up a candidate held in a slice of a char array, so that a
+	 * scanner does not have to build a String for every probe.
+	 * @param hash The String.hashCode() of the slice, which a scanner
+	 * can keep up to date while the candidate grows.
+	 * @param chars The characters, already in dictionary case.
+	 * @param offset The index of the first character of the candidate.
+	 * @param length The number of characters in the candidate.
+	 * @return true if the word is in the dictionary.
+	 */
+	default boolean contains(int hash, char[] chars, int offset, int length) {
+		return contains(new String(chars, offset, length));
+	}
+
+	/**
+	 * Same as contains(int, char[], int, int), with the hash computed here.
+	 */
+	default boolean contains(char[] chars, int offset, int length) {
+		return contains(hashOf(chars, offset, length), chars, offset, length);
+	}
+
+	/**
+	 * @return The value String.hashCode() would return for the slice.
+	 */
+	static int hashOf(char[] chars, int offset, int length) {
+		int h = 0;
+		for(int i = offset; i < offset + length; i++) {
+			h = 31 * h + chars[i];
+		}
+		return h;
+	}
+
+}
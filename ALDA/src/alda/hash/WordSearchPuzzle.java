@@ -5,19 +5,127 @@ package alda.hash;
  */
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class WordSearchPuzzle {
 	
 	MyHashMap<String, Object> dictionary = new MyHashMap<String, Object>(4);
+	WordDictionary words = new HashMapDictionary();
+	WordTrie forwardTrie;
+	WordTrie backwardTrie;
+	AhoCorasick automaton;
+	ConcurrentDictionary concurrentWords;
 	char[][] grid;
+	int longestWord = 0;
+	boolean useBloomFilter = false;
+	boolean useCompactSet = false;
+	boolean usePerfectHash = false;
+	boolean useConcurrentMap = false;
 	
+	private static final String WORDLIST_FILE = "./src/alda/hash/mywordlistfile.txt";
+	private static final String GRID_FILE = "./src/alda/hash/mygridfile.txt";
 	private static final int MINIMUM_WORDLENGTH = 4;
+	private static final int PARALLEL_MINIMUM_CELLS = 64 * 64;
+	private static final int CELLS_PER_TASK = 4096;
+	private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+	
+	/**
+	 * Answers lookups from the loaded MyHashMap; char-slice lookups
+	 * go straight to the table without building a String.
+	 */
+	private class HashMapDictionary implements WordDictionary {
+		
+		@Override
+		public boolean contains(CharSequence word) {
+			return dictionary.containsKey(word.toString());
+		}
+		
+		@Override
+		public boolean contains(int hash, char[] chars, int offset, int length) {
+			return dictionary.containsChars(hash, chars, offset, length);
+		}
+		
+	}
+	
+	/**
+	 * Answers lookups from a ConcurrentMyHashMap, which can be added to
+	 * while other threads are solving grids with it. The length of the
+	 * longest word is kept here too, so that every puzzle sharing the
+	 * dictionary sees words added after it was created.
+	 */
+	private static class ConcurrentDictionary implements WordDictionary {
+		
+		private final ConcurrentMyHashMap<String, Object> map;
+		private final AtomicInteger longestWord = new AtomicInteger();
+		
+		ConcurrentDictionary(ConcurrentMyHashMap<String, Object> map) {
+			this.map = map;
+			for(String word : map.keySet()) {
+				longestWord.accumulateAndGet(word.length(), Math::max);
+			}
+		}
+		
+		void add(String word) {
+			map.put(word, null);
+			longestWord.accumulateAndGet(word.length(), Math::max);
+		}
+		
+		int longestWord() {
+			return longestWord.get();
+		}
+		
+		@Override
+		public boolean contains(CharSequence word) {
+			return map.containsKey(word.toString());
+		}
+		
+		@Override
+		public boolean contains(int hash, char[] chars, int offset, int length) {
+			return map.containsChars(hash, chars, offset, length);
+		}
+		
+	}
+	
+	/**
+	 * Receives the words found in a grid, one at a time, as soon as each
+	 * has been found, so the caller decides what is kept of them.
+	 */
+	public interface WordSink {
+		
+		/**
+		 * @param word The word as it reads in the grid.
+		 * @param startRow The row of the first character.
+		 * @param startColumn The column of the first character.
+		 * @param endRow The row of the last character.
+		 * @param endColumn The column of the last character.
+		 */
+		void found(String word, int startRow, int startColumn, int endRow, int endColumn);
+		
+	}
+	
+	/**
+	 * @return A sink that adds a Word for every word found to the list.
+	 */
+	static WordSink collect(java.util.Collection<Word> wordList) {
+		return (word, startRow, startColumn, endRow, endColumn) ->
+				wordList.add(new Word(word, new int[] {startRow, startColumn}, new int[] {endRow, endColumn}));
+	}
 	
 	/**
 	 * @param startCoordinate Array containing the word
@@ -25,7 +133,7 @@ public class WordSearchPuzzle {
 	 * @param endCoordinate Array containing the word
 	 * coordinates; 0 is the row, 1 is the column. 
 	 */
-	private static class Word {
+	public static class Word {
 		
 		String word;
 		int[] startCoordinate;
@@ -41,6 +149,14 @@ public class WordSearchPuzzle {
 			return word;
 		}
 		
+		public int[] getStartCoordinate() {
+			return startCoordinate;
+		}
+		
+		public int[] getEndCoordinate() {
+			return endCoordinate;
+		}
+		
 		public String toString() {
 			return word +
 					" (" + String.valueOf(startCoordinate[0]) + ":" + String.valueOf(startCoordinate[1]) + ") -" +
@@ -50,27 +166,123 @@ public class WordSearchPuzzle {
 	}
 
 	/**
-	 * Loads a dictionary file to a HashMap for quick access.
+	 * Loads a dictionary file to a HashMap for quick access. The map
+	 * is sized for the whole file up front, so it never has to grow
+	 * while the words are added.
 	 * @param filename The path to the file containing the dictionary entries.
 	 */
 	private MyHashMap<String, Object> loadDictionaryFromFile(String filename) {
 		try {
-			FileReader dictionaryFile = new FileReader(filename);
-			BufferedReader inputBuffer = new BufferedReader(dictionaryFile);
-			String entry = inputBuffer.readLine();
-			while( entry != null ) {
-				dictionary.put(entry, null);
-				entry = inputBuffer.readLine();
-			}
-			inputBuffer.close();
+			dictionary = MyHashMap.fromLines(filename, null, 0);
+			longestWord = dictionary.keySet().parallelStream().mapToInt(String::length).max().orElse(0);
 		} catch( java.io.IOException e ) {
 			 System.out.println("Error in " + filename + " : " + e.getMessage() + " : " + e.getStackTrace());
 		}
 		return dictionary;
 	}
+
+	/**
+	 * Builds a trie of the loaded dictionary and one of its reversed
+	 * words, which lets the grid scanners give up on a direction as soon
+	 * as no word can start (or end) with the characters read so far.
+	 */
+	private void buildPrefixTries() {
+		forwardTrie = WordTrie.of(dictionary.keySet(), false);
+		backwardTrie = WordTrie.of(dictionary.keySet(), true);
+		words = forwardTrie;
+	}
+
+	/**
+	 * Loads the dictionary into a CompactStringSet instead of the
+	 * HashMap: all words share one byte arena, so the dictionary
+	 * takes a fraction of the heap and next to no objects.
+	 * @param filename The path to the file containing the dictionary entries.
+	 */
+	private void loadCompactDictionary(String filename) {
+		try {
+			CompactStringSet compact = CompactStringSet.fromLines(filename);
+			longestWord = compact.longestWord();
+			words = useBloomFilter
+					? new BloomFilterDictionary(compact, compact.size(), BLOOM_FALSE_POSITIVE_RATE, compact)
+					: compact;
+		} catch( java.io.IOException e ) {
+			 System.out.println("Error in " + filename + " : " + e.getMessage() + " : " + e.getStackTrace());
+		}
+	}
+	
+	/**
+	 * Loads the dictionary into a PerfectHashDictionary, which finds
+	 * the only slot a candidate can be in with a single hash, so every
+	 * lookup is one probe and one comparison.
+	 * @param filename The path to the file containing the dictionary entries.
+	 */
+	private void loadPerfectDictionary(String filename) {
+		try {
+			PerfectHashDictionary perfect = PerfectHashDictionary.fromLines(filename);
+			longestWord = perfect.longestWord();
+			words = perfect;
+		} catch( java.io.IOException e ) {
+			 System.out.println("Error in " + filename + " : " + e.getMessage() + " : " + e.getStackTrace());
+		}
+	}
 	
 	/**
-	 * Loads a text file containing a the strings for the grid,
+	 * Loads the dictionary into a ConcurrentMyHashMap, with the lines of
+	 * the file put by several threads at once. Words can then be added
+	 * with addWord() while grids are being solved.
+	 * @param filename The path to the file containing the dictionary entries.
+	 */
+	private void loadConcurrentDictionary(String filename) {
+		try {
+			concurrentWords = new ConcurrentDictionary(ConcurrentMyHashMap.fromLines(filename, null));
+			longestWord = concurrentWords.longestWord();
+			words = concurrentWords;
+		} catch( java.io.IOException e ) {
+			 System.out.println("Error in " + filename + " : " + e.getMessage() + " : " + e.getStackTrace());
+		}
+	}
+	
+	/**
+	 * Adds a word to a dictionary loaded with useConcurrentMap. It is
+	 * found in every grid solved from then on, by this puzzle and by
+	 * all puzzles created from it with withGrid().
+	 * @param word The word, in dictionary case.
+	 */
+	void addWord(String word) {
+		if(concurrentWords == null) {
+			throw new UnsupportedOperationException("Only a concurrent dictionary can be added to.");
+		}
+		concurrentWords.add(word);
+	}
+	
+	/**
+	 * Puts a Bloom filter in front of the loaded HashMap. The scanners
+	 * then look every candidate up by hash instead of walking the tries,
+	 * and the filter turns nearly all of the misses away before they
+	 * reach the table.
+	 */
+	private void buildBloomFilter() {
+		words = new BloomFilterDictionary(dictionary.keySet(), dictionary.size(), BLOOM_FALSE_POSITIVE_RATE, new HashMapDictionary());
+	}
+	
+	/**
+	 * Opens a dictionary index compiled with DictionaryIndex and uses it
+	 * for all lookups instead of the HashMap; the file is queried in
+	 * place, so no words are read or stored on the heap.
+	 * @param filename The path to the compiled index file.
+	 */
+	private void loadDictionaryIndex(String filename) {
+		try {
+			DictionaryIndex index = DictionaryIndex.open(filename);
+			longestWord = index.longestWord();
+			words = index;
+		} catch( java.io.IOException e ) {
+			 System.out.println("Error in " + filename + " : " + e.getMessage() + " : " + e.getStackTrace());
+		}
+	}
+	
+	/**
+	 * Loads a UTF-8 text file containing a the strings for the grid,
 	 * with each row in the grid delimited by a row break.
 	 * @param filename The path to the text file containing the grid data.
 	 */
@@ -82,8 +294,7 @@ public class WordSearchPuzzle {
 		int cols = 0;
 		
 		try {
-			FileReader gridFile = new FileReader(filename);
-			BufferedReader inputBuffer = new BufferedReader(gridFile);
+			BufferedReader inputBuffer = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8);
 			String entry = inputBuffer.readLine();
 			while( entry != null ) {
 				gridLines.add(entry);
@@ -106,144 +317,581 @@ public class WordSearchPuzzle {
 		}
 	}
 	
-	private List<Word> findWords(int wordLength) {
+	private char[] newScratch() {
+		return new char[2 * Math.max(grid.length, grid[0].length)];
+	}
+	
+	/**
+	 * Solves a grid file of any size without loading it. Rows are read
+	 * one at a time into a window that holds between longestWord and
+	 * twice that many rows; every word is found, and handed to the sink,
+	 * when the row holding its lowest cell is read, since the scanners
+	 * only ever look upwards and sideways from their starting cell.
+	 * Memory use is bounded by the window, not by the size of the grid.
+	 * The grid loaded into this puzzle, if any, is left as it is.
+	 * @param filename The path to the grid file, one row per line.
+	 * @param sink Receives each word as soon as it has been found.
+	 */
+	public void findWordsStreaming(String filename, Consumer<Word> sink) {
+		findWordsStreaming(filename, (word, startRow, startColumn, endRow, endColumn) ->
+				sink.accept(new Word(word, new int[] {startRow, startColumn}, new int[] {endRow, endColumn})));
+	}
+	
+	/**
+	 * As findWordsStreaming(String, Consumer), without creating a Word
+	 * for every word found.
+	 */
+	public void findWordsStreaming(String filename, WordSink sink) {
+		int windowRows = Math.max(longestWord, MINIMUM_WORDLENGTH);
+		char[][] rows = new char[2 * windowRows][];
+		WordSearchPuzzle window = withGrid(rows);
+		char[] scratch = new char[0];
+		int filledRows = 0;
+		int rowOffset = 0;
 		
+		try( BufferedReader inputBuffer = Files.newBufferedReader(Paths.get(filename), StandardCharsets.UTF_8) ) {
+			for(String entry = inputBuffer.readLine(); entry != null; entry = inputBuffer.readLine()) {
+				
+				/**
+				 * When the window is full, keep only its newest rows;
+				 * moving the row references is all the copying needed.
+				 */
+				if(filledRows == rows.length) {
+					System.arraycopy(rows, windowRows, rows, 0, windowRows);
+					Arrays.fill(rows, windowRows, rows.length, null);
+					filledRows = windowRows;
+					rowOffset += windowRows;
+				}
+				rows[filledRows] = entry.toCharArray();
+				if(scratch.length < 2 * entry.length()) {
+					scratch = new char[2 * Math.max(rows.length, entry.length())];
+				}
+				
+				final int offset = rowOffset;
+				window.findWords(MINIMUM_WORDLENGTH, filledRows, filledRows + 1, (word, startRow, startColumn, endRow, endColumn) ->
+						sink.found(word, startRow + offset, startColumn, endRow + offset, endColumn), scratch);
+				filledRows++;
+			}
+		} catch( java.io.IOException e ) {
+			 System.out.println("Error in " + filename + " : " + e.getMessage() + " : " + e.getStackTrace());
+		}
+	}
+	
+	/**
+	 * Searches from every cell in the rows fromRow (inclusive)
+	 * to toRow (exclusive).
+	 */
+	private List<Word> findWords(int wordLength, int fromRow, int toRow) {
 		List<Word> wordList = new ArrayList<Word>();
-		int numberOfRows = grid.length;
+		findWords(wordLength, fromRow, toRow, collect(wordList), newScratch());
+		return wordList;
+	}
+	
+	/**
+	 * @param scratch Working space of twice the longest grid line.
+	 */
+	private void findWords(int wordLength, int fromRow, int toRow, WordSink sink, char[] scratch) {
+		
 		int numberOfColumns = grid[0].length;
 		
-		for(int rowIndex = 0; rowIndex < numberOfRows; rowIndex++) {
+		for(int rowIndex = fromRow; rowIndex < toRow; rowIndex++) {
 			for(int columnIndex = 0; columnIndex < numberOfColumns; columnIndex++) {
 				if(rowIndex - (wordLength-1) >= 0) {
-					wordList.addAll( searchTopToBottom(rowIndex, columnIndex) );
+					searchTopToBottom(rowIndex, columnIndex, sink, scratch);
 				}
 				if(columnIndex - (wordLength-1) >= 0) {
-					wordList.addAll( searchLeftToRight(rowIndex, columnIndex) );
+					searchLeftToRight(rowIndex, columnIndex, sink, scratch);
 				}
-				if( columnIndex - (wordLength-1) >= 0 && rowIndex - (wordLength-1) > 0) {
-					wordList.addAll( searchTopLeftToBottomRight(rowIndex, columnIndex) );
+				if( columnIndex - (wordLength-1) >= 0 && rowIndex - (wordLength-1) >= 0) {
+					searchTopLeftToBottomRight(rowIndex, columnIndex, sink, scratch);
 				}
 				if( rowIndex - (wordLength-1) >= 0 && columnIndex + (wordLength-1) < numberOfColumns) {
-					wordList.addAll( searchTopRightToBottomLeft(rowIndex, columnIndex) );
+					searchTopRightToBottomLeft(rowIndex, columnIndex, sink, scratch);
 				}
 			}
 		}
-		return wordList;
 	}
 	
 	/**
-	 * Searches 
-	 * @param rowIndex
-	 * @param columnIndex
-	 * @return
+	 * Solves the grid on the common ForkJoinPool. The rows are split into
+	 * bands, each band collects its own words, and the bands are joined
+	 * in row order, so the result is the same list findWords returns.
+	 */
+	private List<Word> findWordsInParallel(int wordLength) {
+		int rowsPerTask = Math.max(1, CELLS_PER_TASK / Math.max(1, grid[0].length));
+		return ForkJoinPool.commonPool().invoke(new FindWordsTask(wordLength, 0, grid.length, rowsPerTask));
+	}
+	
+	/**
+	 * Splits the rows of the grid between the threads of a parallel
+	 * stream, and solves them one row at a time as words are asked for,
+	 * so only the words of the row being solved are held at once.
+	 */
+	private class WordSpliterator implements Spliterator<Word> {
+		
+		private final ArrayDeque<Word> pending = new ArrayDeque<>();
+		private final WordSink sink = collect(pending);
+		private char[] scratch;
+		private int row;
+		private int toRow;
+		
+		WordSpliterator(int fromRow, int toRow) {
+			this.row = fromRow;
+			this.toRow = toRow;
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super Word> action) {
+			while(pending.isEmpty() && row < toRow) {
+				if(scratch == null) {
+					scratch = newScratch();
+				}
+				findWords(MINIMUM_WORDLENGTH, row, row + 1, sink, scratch);
+				row++;
+			}
+			if(pending.isEmpty()) {
+				return false;
+			}
+			action.accept(pending.poll());
+			return true;
+		}
+		
+		/**
+		 * Hands over the upper half of the rows not yet solved, together
+		 * with the words already found but not yet consumed, since those
+		 * come before any of them; this keeps the lower half.
+		 */
+		@Override
+		public Spliterator<Word> trySplit() {
+			if(toRow - row < 2) {
+				return null;
+			}
+			int middleRow = (row + toRow) >>> 1;
+			WordSpliterator upper = new WordSpliterator(row, middleRow);
+			upper.pending.addAll(pending);
+			pending.clear();
+			row = middleRow;
+			return upper;
+		}
+		
+		@Override
+		public long estimateSize() {
+			return pending.size() + (grid.length == 0 ? 0 : (long) (toRow - row) * grid[0].length);
+		}
+		
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
+		
+	}
+	
+	private class FindWordsTask extends RecursiveTask<List<Word>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int wordLength;
+		private final int fromRow;
+		private final int toRow;
+		private final int rowsPerTask;
+		
+		public FindWordsTask(int wordLength, int fromRow, int toRow, int rowsPerTask) {
+			this.wordLength = wordLength;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.rowsPerTask = rowsPerTask;
+		}
+		
+		@Override
+		protected List<Word> compute() {
+			if(toRow - fromRow <= rowsPerTask) {
+				return findWords(wordLength, fromRow, toRow);
+			}
+			int middleRow = (fromRow + toRow) >>> 1;
+			FindWordsTask upper = new FindWordsTask(wordLength, fromRow, middleRow, rowsPerTask);
+			FindWordsTask lower = new FindWordsTask(wordLength, middleRow, toRow, rowsPerTask);
+			lower.fork();
+			List<Word> wordList = upper.compute();
+			wordList.addAll(lower.join());
+			return wordList;
+		}
+		
+	}
+	
+	/**
+	 * Builds an Aho-Corasick automaton from the loaded dictionary. It
+	 * only has to be built once and can then solve any number of grids.
 	 */
-	private List<Word> searchTopToBottom(int rowIndex, int columnIndex) {
+	private void buildAutomaton() {
+		automaton = new AhoCorasick(dictionary.keySet(), MINIMUM_WORDLENGTH);
+	}
+	
+	/**
+	 * Solves the grid by streaming every line of it through the
+	 * automaton: all rows, columns and diagonals, each read forwards and
+	 * backwards. The time taken is linear in the size of the grid plus
+	 * the number of matches, whatever the size of the dictionary.
+	 */
+	private void findWordsWithAutomaton(WordSink wordList) {
+		int numberOfRows = grid.length;
+		int numberOfColumns = grid[0].length;
+		char[] line = new char[Math.max(numberOfRows, numberOfColumns)];
 		
-        List<Word> foundWords = new ArrayList<Word>();
-        StringBuilder word = new StringBuilder();
-        for(int row = rowIndex; row >= 0; row--) {
-            word.append(grid[row][columnIndex]);
-            if(word.length() >= MINIMUM_WORDLENGTH) {
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {rowIndex, columnIndex}, new int[] {row, columnIndex}));
-                }
-                word.reverse();
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {row, columnIndex}, new int[] {rowIndex, columnIndex}));
-                }
-                word.reverse();
-            }
-        }
-		return foundWords;
+		for(int row = 0; row < numberOfRows; row++) {
+			scanLine(row, 0, 0, 1, line, wordList);
+		}
+		for(int column = 0; column < numberOfColumns; column++) {
+			scanLine(0, column, 1, 0, line, wordList);
+		}
+		for(int row = numberOfRows - 1; row >= 0; row--) {
+			scanLine(row, 0, 1, 1, line, wordList);
+		}
+		for(int column = 1; column < numberOfColumns; column++) {
+			scanLine(0, column, 1, 1, line, wordList);
+		}
+		for(int column = 0; column < numberOfColumns; column++) {
+			scanLine(0, column, 1, -1, line, wordList);
+		}
+		for(int row = 1; row < numberOfRows; row++) {
+			scanLine(row, numberOfColumns - 1, 1, -1, line, wordList);
+		}
 	}
 	
 	/**
-	 * 
-	 * @param rowIndex
-	 * @param columnIndex
-	 * @return
-	 */
-	private List<Word> searchLeftToRight(int rowIndex, int columnIndex) {
-        List<Word> foundWords = new ArrayList<Word>();
-        StringBuilder word = new StringBuilder();
-        for(int column = columnIndex; column >= 0; column--) {
-            word.append(grid[rowIndex][column]);
-            if(word.length() >= MINIMUM_WORDLENGTH) {
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {rowIndex, columnIndex}, new int[] {rowIndex, column}));
-                }
-                word.reverse();
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {rowIndex, column}, new int[] {rowIndex, columnIndex}));
-                }
-                word.reverse();
-            }
-        }
-		return foundWords;
+	 * Copies one grid line, lower-cased, into the buffer and runs it
+	 * through the automaton once as read and once reversed.
+	 */
+	private void scanLine(int startRow, int startColumn, int rowStep, int columnStep, char[] line, WordSink sink) {
+		int length = 0;
+		for(int row = startRow, column = startColumn; isInGrid(row, column); row += rowStep, column += columnStep) {
+			line[length++] = Character.toLowerCase(grid[row][column]);
+		}
+		final int cells = length;
+		automaton.scan(line, cells, (start, end) -> lineWord(startRow, startColumn, rowStep, columnStep, start, end, sink));
+		for(int i = 0, j = cells - 1; i < j; i++, j--) {
+			char c = line[i];
+			line[i] = line[j];
+			line[j] = c;
+		}
+		automaton.scan(line, cells, (start, end) -> lineWord(startRow, startColumn, rowStep, columnStep, cells - 1 - start, cells - 1 - end, sink));
 	}
 	
 	/**
-	 * 
-	 * @param rowIndex
-	 * @param columnIndex
-	 * @return
-	 */
-	private List<Word> searchTopLeftToBottomRight(int rowIndex, int columnIndex) {
-        List<Word> foundWords = new ArrayList<Word>();
-        StringBuilder word = new StringBuilder();
-        for(int row = rowIndex, column = columnIndex; row >= 0 && column >= 0; row--, column--) {
-            word.append(grid[row][column]);
-            if(word.length() >= MINIMUM_WORDLENGTH) {
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {rowIndex, columnIndex}, new int[] {row, column}));
-                }
-                word.reverse();
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {row, column}, new int[] {rowIndex, columnIndex}));
-                }
-                word.reverse();
-            }
-        }
-		return foundWords;
+	 * Hands the word running from the start-th to the end-th cell of a
+	 * grid line to the sink.
+	 */
+	private void lineWord(int startRow, int startColumn, int rowStep, int columnStep, int start, int end, WordSink sink) {
+		int fromRow = startRow + start * rowStep;
+		int fromColumn = startColumn + start * columnStep;
+		int toRow = startRow + end * rowStep;
+		int toColumn = startColumn + end * columnStep;
+		sink.found(readGrid(fromRow, fromColumn, toRow, toColumn, Math.abs(end - start) + 1), fromRow, fromColumn, toRow, toColumn);
 	}
 	
 	/**
+	 * Searches upwards from the cell, for words read bottom-up
+	 * and (reversed) top-down.
+	 * @param rowIndex The row of the starting cell.
+	 * @param columnIndex The column of the starting cell.
+	 * @param sink Receives the words found.
+	 * @param scratch Working space of twice the longest grid line.
+	 */
+	private void searchTopToBottom(int rowIndex, int columnIndex, WordSink sink, char[] scratch) {
+		search(rowIndex, columnIndex, -1, 0, sink, scratch);
+	}
+	
+	/**
+	 * Searches leftwards from the cell, for words read right-to-left
+	 * and (reversed) left-to-right.
+	 * @param rowIndex The row of the starting cell.
+	 * @param columnIndex The column of the starting cell.
+	 * @param sink Receives the words found.
+	 * @param scratch Working space of twice the longest grid line.
+	 */
+	private void searchLeftToRight(int rowIndex, int columnIndex, WordSink sink, char[] scratch) {
+		search(rowIndex, columnIndex, 0, -1, sink, scratch);
+	}
+	
+	/**
+	 * Searches up and to the left from the cell, along the
+	 * diagonal running from the top left to the bottom right.
+	 * @param rowIndex The row of the starting cell.
+	 * @param columnIndex The column of the starting cell.
+	 * @param sink Receives the words found.
+	 * @param scratch Working space of twice the longest grid line.
+	 */
+	private void searchTopLeftToBottomRight(int rowIndex, int columnIndex, WordSink sink, char[] scratch) {
+		search(rowIndex, columnIndex, -1, -1, sink, scratch);
+	}
+	
+	/**
+	 * Searches up and to the right from the cell, along the
+	 * diagonal running from the top right to the bottom left.
+	 * @param rowIndex The row of the starting cell.
+	 * @param columnIndex The column of the starting cell.
+	 * @param sink Receives the words found.
+	 * @param scratch Working space of twice the longest grid line.
+	 */
+	private void searchTopRightToBottomLeft(int rowIndex, int columnIndex, WordSink sink, char[] scratch) {
+		search(rowIndex, columnIndex, -1, 1, sink, scratch);
+	}
+	
+	/**
+	 * Walks from the starting cell towards the grid edge, one step of
+	 * (rowStep, columnStep) at a time, and collects every word that reads
+	 * either away from or towards the starting cell.
+	 */
+	private void search(int rowIndex, int columnIndex, int rowStep, int columnStep, WordSink sink, char[] scratch) {
+		if(forwardTrie != null) {
+			searchPrefixes(rowIndex, columnIndex, rowStep, columnStep, sink);
+		} else {
+			searchDictionary(rowIndex, columnIndex, rowStep, columnStep, sink, scratch);
+		}
+	}
+	
+	private boolean isInGrid(int row, int column) {
+		return row >= 0 && row < grid.length && column >= 0 && column < grid[row].length;
+	}
+	
+	/**
+	 * Looks up every candidate of at least MINIMUM_WORDLENGTH
+	 * characters, in both directions, up to the grid edge or the length
+	 * of the longest word, whichever comes first.
 	 * 
-	 * @param rowIndex
-	 * @param columnIndex
-	 * @return
-	 */
-	private List<Word> searchTopRightToBottomLeft(int rowIndex, int columnIndex) {
-        List<Word> foundWords = new ArrayList<Word>();
-        StringBuilder word = new StringBuilder();
-        for(int row = rowIndex, column = columnIndex; row >= 0 && column < grid[0].length; row--, column++) {
-            word.append(grid[row][column]);
-            if(word.length() >= MINIMUM_WORDLENGTH) {
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {rowIndex, columnIndex}, new int[] {row, column}));
-                }
-                word.reverse();
-                if(dictionary.containsKey(word.toString().toLowerCase())) {
-                    foundWords.add(new Word(word.toString(), new int[] {row, column}, new int[] {rowIndex, columnIndex}));
-                }
-                word.reverse();
-            }
-        }
-		return foundWords;
+	 * Nothing is allocated until a word is found: the lower-cased
+	 * characters are written front to back into the first half of
+	 * scratch and back to front into the second half, so both
+	 * candidates are always a contiguous slice, and the String hash
+	 * codes of both are rolled forward one character per step.
+	 */
+	private void searchDictionary(int rowIndex, int columnIndex, int rowStep, int columnStep, WordSink sink, char[] scratch) {
+		int end = scratch.length;
+		int limit = (concurrentWords != null) ? concurrentWords.longestWord() : longestWord;
+		int forwardHash = 0;
+		int backwardHash = 0;
+		int power = 1;
+		int length = 0;
+		for(int row = rowIndex, column = columnIndex; isInGrid(row, column) && length < limit; row += rowStep, column += columnStep) {
+			char c = Character.toLowerCase(grid[row][column]);
+			scratch[length] = c;
+			scratch[end - 1 - length] = c;
+			length++;
+			forwardHash = 31 * forwardHash + c;
+			backwardHash += c * power;
+			power *= 31;
+			if(length >= MINIMUM_WORDLENGTH) {
+				if(words.contains(forwardHash, scratch, 0, length)) {
+					sink.found(readGrid(rowIndex, columnIndex, row, column, length), rowIndex, columnIndex, row, column);
+				}
+				if(words.contains(backwardHash, scratch, end - length, length)) {
+					sink.found(readGrid(row, column, rowIndex, columnIndex, length), row, column, rowIndex, columnIndex);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Walks the forward and the reversed trie along with the grid, one
+	 * character per step, and stops as soon as neither of them has a
+	 * word starting with the characters read so far.
+	 */
+	private void searchPrefixes(int rowIndex, int columnIndex, int rowStep, int columnStep, WordSink sink) {
+		int forward = forwardTrie.root();
+		int backward = backwardTrie.root();
+		int length = 0;
+		for(int row = rowIndex, column = columnIndex;
+				isInGrid(row, column) && (forward != WordTrie.NONE || backward != WordTrie.NONE);
+				row += rowStep, column += columnStep) {
+			char c = Character.toLowerCase(grid[row][column]);
+			length++;
+			if(forward != WordTrie.NONE) {
+				forward = forwardTrie.step(forward, c);
+			}
+			if(backward != WordTrie.NONE) {
+				backward = backwardTrie.step(backward, c);
+			}
+			if(length >= MINIMUM_WORDLENGTH) {
+				if(forward != WordTrie.NONE && forwardTrie.isWord(forward)) {
+					sink.found(readGrid(rowIndex, columnIndex, row, column, length), rowIndex, columnIndex, row, column);
+				}
+				if(backward != WordTrie.NONE && backwardTrie.isWord(backward)) {
+					sink.found(readGrid(row, column, rowIndex, columnIndex, length), row, column, rowIndex, columnIndex);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reads the characters on the straight line between two cells.
+	 */
+	private String readGrid(int fromRow, int fromColumn, int toRow, int toColumn, int length) {
+		int rowStep = Integer.signum(toRow - fromRow);
+		int columnStep = Integer.signum(toColumn - fromColumn);
+		char[] word = new char[length];
+		for(int i = 0; i < length; i++) {
+			word[i] = grid[fromRow + i * rowStep][fromColumn + i * columnStep];
+		}
+		return new String(word);
 	}
 	
 	/**
 	 * Help method to load a predefined dictionary and grid
 	 * for demo purposes, and then to process the grid against
 	 * the dictionary.
+	 * @param dictionaryIndex The path to a compiled dictionary index,
+	 * or null to load the plain word list instead.
+	 * @param useAutomaton If true, the word list is loaded and the grid
+	 * is solved with an Aho-Corasick automaton instead of the scanners.
 	 */
-	private void initShit() {
-		loadDictionaryFromFile("./src/alda/hash/mywordlistfile.txt");
-		loadGrid("./src/alda/hash/mygridfile.txt");
+	private void initShit(String dictionaryIndex, boolean useAutomaton) {
+		load(dictionaryIndex, useAutomaton);
 //		printDictionary();
 		printGrid();
-		List<Word> foundWordsList = findWords(MINIMUM_WORDLENGTH);
-		printSolutions(foundWordsList);
+		printSolutions(solve(useAutomaton));
+	}
+	
+	/**
+	 * Loads the dictionary and the predefined grid.
+	 * @param dictionaryIndex The path to a compiled dictionary index,
+	 * or null to load the plain word list instead.
+	 * @param useAutomaton Builds the Aho-Corasick automaton as well.
+	 */
+	void load(String dictionaryIndex, boolean useAutomaton) {
+		loadWords(dictionaryIndex, useAutomaton);
+		loadGrid(GRID_FILE);
+	}
+	
+	/**
+	 * Loads the dictionary only, as load() does.
+	 */
+	void loadWords(String dictionaryIndex, boolean useAutomaton) {
+		if(useAutomaton) {
+			loadDictionaryFromFile(WORDLIST_FILE);
+			buildAutomaton();
+		} else {
+			loadDictionary(dictionaryIndex);
+		}
+	}
+	
+	/**
+	 * Loads the given words instead of the word list file, with the
+	 * prefix tries, or with a Bloom filter if useBloomFilter is set, and
+	 * with the Aho-Corasick automaton, so every solve mode can be used.
+	 * @param wordList The words, in dictionary case.
+	 */
+	void loadWords(java.util.Collection<String> wordList) {
+		dictionary = MyHashMap.withExpectedSize(wordList.size());
+		dictionary.putAll(wordList, null);
+		longestWord = 0;
+		for(String word : wordList) {
+			longestWord = Math.max(longestWord, word.length());
+		}
+		if(useBloomFilter) {
+			buildBloomFilter();
+		} else {
+			buildPrefixTries();
+		}
+		buildAutomaton();
+	}
+	
+	/**
+	 * Creates a puzzle for another grid that shares the dictionary, the
+	 * tries and the automaton of this one. None of them is written to
+	 * once loaded, so any number of such puzzles can be solved at the
+	 * same time.
+	 */
+	WordSearchPuzzle withGrid(char[][] grid) {
+		WordSearchPuzzle puzzle = new WordSearchPuzzle();
+		puzzle.dictionary = dictionary;
+		puzzle.words = words;
+		puzzle.forwardTrie = forwardTrie;
+		puzzle.backwardTrie = backwardTrie;
+		puzzle.automaton = automaton;
+		puzzle.concurrentWords = concurrentWords;
+		puzzle.longestWord = longestWord;
+		puzzle.grid = grid;
+		return puzzle;
+	}
+	
+	/**
+	 * Finds every word in the loaded grid, in no particular order.
+	 * @param useAutomaton Scans with the automaton built by load().
+	 */
+	List<Word> solve(boolean useAutomaton) {
+		return solve(useAutomaton, grid.length > 0 && grid.length * grid[0].length >= PARALLEL_MINIMUM_CELLS);
+	}
+	
+	/**
+	 * @param parallel Splits the grid over the ForkJoinPool; otherwise
+	 * the whole grid is solved on the calling thread.
+	 */
+	List<Word> solve(boolean useAutomaton, boolean parallel) {
+		if(parallel && !useAutomaton && grid.length > 0) {
+			return findWordsInParallel(MINIMUM_WORDLENGTH);
+		}
+		List<Word> wordList = new ArrayList<>();
+		solve(useAutomaton, collect(wordList));
+		return wordList;
+	}
+	
+	/**
+	 * Hands every word in the loaded grid to the sink as it is found,
+	 * on the calling thread, without keeping any of them.
+	 * @param useAutomaton Scans with the automaton built by load().
+	 */
+	void solve(boolean useAutomaton, WordSink sink) {
+		if(grid.length == 0) {
+			return;
+		} else if(useAutomaton) {
+			findWordsWithAutomaton(sink);
+		} else {
+			findWords(MINIMUM_WORDLENGTH, 0, grid.length, sink, newScratch());
+		}
+	}
+	
+	/**
+	 * Finds the words of the loaded grid lazily, a row at a time, with
+	 * the scanners. The stream can be made parallel; the rows are then
+	 * shared out between its threads.
+	 */
+	Stream<Word> stream() {
+		return StreamSupport.stream(new WordSpliterator(0, grid.length), false);
+	}
+	
+	/**
+	 * Loads the compiled index if one is given, otherwise the word
+	 * list together with its prefix tries, or with a Bloom filter
+	 * if useBloomFilter is set. With useCompactSet, usePerfectHash or
+	 * useConcurrentMap the word list goes into a CompactStringSet, a
+	 * PerfectHashDictionary or a ConcurrentMyHashMap instead.
+	 */
+	private void loadDictionary(String dictionaryIndex) {
+		if(dictionaryIndex != null) {
+			loadDictionaryIndex(dictionaryIndex);
+		} else if(useCompactSet) {
+			loadCompactDictionary(WORDLIST_FILE);
+		} else if(usePerfectHash) {
+			loadPerfectDictionary(WORDLIST_FILE);
+		} else if(useConcurrentMap) {
+			loadConcurrentDictionary(WORDLIST_FILE);
+		} else if(useBloomFilter) {
+			loadDictionaryFromFile(WORDLIST_FILE);
+			buildBloomFilter();
+		} else {
+			loadDictionaryFromFile(WORDLIST_FILE);
+			buildPrefixTries();
+		}
+	}
+	
+	/**
+	 * Help method to solve the predefined grid as a stream, printing
+	 * each word as soon as it is found rather than sorted at the end.
+	 * @param dictionaryIndex The path to a compiled dictionary index,
+	 * or null to load the plain word list instead.
+	 */
+	private void initStreaming(String dictionaryIndex) {
+		loadDictionary(dictionaryIndex);
+		findWordsStreaming(GRID_FILE, w -> System.out.println(w.toString()));
 	}
 	
 	/**
@@ -291,9 +939,44 @@ public class WordSearchPuzzle {
 		}
 	}
 	
+	/**
+	 * Usage: WordSearchPuzzle [-automaton | -stream] [-compact | -perfect | -concurrent] [-bloom | dictionary index file]
+	 */
 	public static void main(String args[]) {
+		String dictionaryIndex = null;
+		boolean useAutomaton = false;
+		boolean stream = false;
+		boolean bloom = false;
+		boolean compact = false;
+		boolean perfect = false;
+		boolean concurrent = false;
+		for(String arg : args) {
+			if(arg.equals("-automaton")) {
+				useAutomaton = true;
+			} else if(arg.equals("-stream")) {
+				stream = true;
+			} else if(arg.equals("-bloom")) {
+				bloom = true;
+			} else if(arg.equals("-compact")) {
+				compact = true;
+			} else if(arg.equals("-perfect")) {
+				perfect = true;
+			} else if(arg.equals("-concurrent")) {
+				concurrent = true;
+			} else {
+				dictionaryIndex = arg;
+			}
+		}
 		WordSearchPuzzle wsp = new WordSearchPuzzle();
-		wsp.initShit();
+		wsp.useBloomFilter = bloom;
+		wsp.useCompactSet = compact;
+		wsp.usePerfectHash = perfect;
+		wsp.useConcurrentMap = concurrent;
+		if(stream) {
+			wsp.initStreaming(dictionaryIndex);
+		} else {
+			wsp.initShit(dictionaryIndex, useAutomaton);
+		}
 	}
 
 }
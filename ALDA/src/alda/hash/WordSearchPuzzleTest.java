@@ -0,0 +1,125 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.*;
+
+public class WordSearchPuzzleTest {
+
+	private static final List<String> WORDS = Arrays.asList("bird", "bride", "done", "door", "note", "rose", "side",
+			"snore", "stone", "tone", "tree", "seed", "dose", "node", "rest", "nest", "star", "rats", "tire", "rite",
+			"dent", "tend", "ride", "dine", "nose", "ones", "toes", "sort", "root", "rote", "tote", "test", "sirens",
+			"ordinates");
+
+	// Bred nog för att parallella lösningar ska delas upp i flera band.
+	private static final int ROWS = 120;
+	private static final int COLUMNS = 80;
+
+	private char[][] grid = new char[ROWS][COLUMNS];
+
+	@Before
+	public void createGrid() {
+		Random random = new Random(7);
+		String letters = "ABDEINORST";
+		for (char[] row : grid) {
+			for (int column = 0; column < COLUMNS; column++) {
+				row[column] = letters.charAt(random.nextInt(letters.length()));
+			}
+		}
+	}
+
+	private WordSearchPuzzle load(boolean useBloomFilter) {
+		WordSearchPuzzle puzzle = new WordSearchPuzzle();
+		puzzle.useBloomFilter = useBloomFilter;
+		puzzle.loadWords(WORDS);
+		return puzzle;
+	}
+
+	private static List<String> sorted(Collection<WordSearchPuzzle.Word> words) {
+		return words.stream().map(WordSearchPuzzle.Word::toString).sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testAllSolveModesAgree() throws IOException {
+		WordSearchPuzzle puzzle = load(false);
+		List<String> expected = sorted(puzzle.withGrid(grid).solve(false, false));
+		assertTrue(expected.size() > 50);
+
+		assertEquals(expected, sorted(puzzle.withGrid(grid).solve(false, true)));
+		assertEquals(expected, sorted(puzzle.withGrid(grid).solve(true, false)));
+		assertEquals(expected, sorted(load(true).withGrid(grid).solve(false, false)));
+		assertEquals(expected, sorted(load(true).withGrid(grid).solve(false, true)));
+
+		List<WordSearchPuzzle.Word> sunk = new ArrayList<>();
+		puzzle.withGrid(grid).solve(false, WordSearchPuzzle.collect(sunk));
+		assertEquals(expected, sorted(sunk));
+		sunk.clear();
+		puzzle.withGrid(grid).solve(true, WordSearchPuzzle.collect(sunk));
+		assertEquals(expected, sorted(sunk));
+
+		assertEquals(expected, sorted(puzzle.withGrid(grid).stream().collect(Collectors.toList())));
+		assertEquals(expected, sorted(puzzle.withGrid(grid).stream().parallel().collect(Collectors.toList())));
+
+		File file = File.createTempFile("grid", ".txt");
+		file.deleteOnExit();
+		List<String> lines = new ArrayList<>();
+		for (char[] row : grid) {
+			lines.add(new String(row));
+		}
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+		List<WordSearchPuzzle.Word> streamed = new ArrayList<>();
+		WordSearchPuzzle loaded = puzzle.withGrid(grid);
+		loaded.findWordsStreaming(file.getPath(), streamed::add);
+		assertEquals(expected, sorted(streamed));
+		assertSame(grid, loaded.grid);
+		assertEquals(expected, sorted(loaded.solve(false, false)));
+	}
+
+	@Test
+	public void testParallelKeepsRowOrder() {
+		WordSearchPuzzle puzzle = load(false).withGrid(grid);
+		List<String> sequential = new ArrayList<>();
+		for (WordSearchPuzzle.Word word : puzzle.solve(false, false)) {
+			sequential.add(word.toString());
+		}
+		List<String> parallel = new ArrayList<>();
+		for (WordSearchPuzzle.Word word : puzzle.solve(false, true)) {
+			parallel.add(word.toString());
+		}
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void testParallelStreamKeepsOrder() {
+		WordSearchPuzzle puzzle = load(false).withGrid(grid);
+		List<String> sequential = puzzle.stream().map(WordSearchPuzzle.Word::toString).collect(Collectors.toList());
+		List<String> parallel = puzzle.stream().parallel().map(WordSearchPuzzle.Word::toString).collect(Collectors.toList());
+		assertEquals(sequential, parallel);
+		assertEquals(sequential.get(0), puzzle.stream().parallel().findFirst().get().toString());
+		List<String> solved = new ArrayList<>();
+		for (WordSearchPuzzle.Word word : puzzle.solve(false, false)) {
+			solved.add(word.toString());
+		}
+		assertEquals(solved, sequential);
+	}
+
+	@Test
+	public void testEmptyGrid() {
+		WordSearchPuzzle puzzle = load(false).withGrid(new char[0][]);
+		assertTrue(puzzle.solve(false, true).isEmpty());
+		assertTrue(puzzle.solve(true, false).isEmpty());
+		assertEquals(0, puzzle.stream().parallel().count());
+	}
+
+}
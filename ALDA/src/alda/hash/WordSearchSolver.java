@@ -0,0 +1,189 @@
+package alda.hash;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running word search service. The dictionary is loaded once and
+ * then shared, read-only, by every grid submitted afterwards; each grid
+ * is solved on its own thread and the words found are delivered through
+ * a CompletableFuture, to be waited for or given callbacks.
+ *
+ * Grids are solved on virtual threads where the JVM has them, and on a
+ * pool with one thread per processor otherwise. At most maximumInFlight
+ * grids are accepted at a time: submit() blocks once that many are
+ * queued or being solved, which keeps a fast producer from piling up
+ * work (and grids) in memory.
+ *
+ * Any dictionary the puzzle can load can be used: load it into a
+ * WordSearchPuzzle, with useCompactSet, usePerfectHash, useBloomFilter
+ * or useConcurrentMap set as wanted, and hand that puzzle over.
+ */
+public class WordSearchSolver implements AutoCloseable {
+
+	private final WordSearchPuzzle shared;
+	private final boolean useAutomaton;
+	private final ExecutorService executor;
+	private final Semaphore inFlight;
+
+	/**
+	 * Loads the dictionary.
+	 * @param dictionaryIndex The path to a compiled dictionary index, or
+	 * null to load the plain word list.
+	 * @param useAutomaton Solves with the Aho-Corasick automaton.
+	 * @param maximumInFlight The number of grids accepted at a time.
+	 */
+	public WordSearchSolver(String dictionaryIndex, boolean useAutomaton, int maximumInFlight) {
+		this(load(dictionaryIndex, useAutomaton), useAutomaton, maximumInFlight);
+	}
+
+	/**
+	 * Shares the dictionary already loaded into a puzzle.
+	 * @param loaded A puzzle whose dictionary has been loaded, and with
+	 * it the automaton if useAutomaton is set.
+	 * @param useAutomaton Solves with the Aho-Corasick automaton.
+	 * @param maximumInFlight The number of grids accepted at a time.
+	 */
+	public WordSearchSolver(WordSearchPuzzle loaded, boolean useAutomaton, int maximumInFlight) {
+		this(loaded, useAutomaton, maximumInFlight, newExecutor());
+	}
+
+	WordSearchSolver(WordSearchPuzzle loaded, boolean useAutomaton, int maximumInFlight, ExecutorService executor) {
+		if(maximumInFlight <= 0) {
+			throw new IllegalArgumentException("At least one grid must be allowed in flight.");
+		}
+		this.shared = loaded;
+		this.useAutomaton = useAutomaton;
+		this.executor = executor;
+		this.inFlight = new Semaphore(maximumInFlight);
+	}
+
+	private static WordSearchPuzzle load(String dictionaryIndex, boolean useAutomaton) {
+		WordSearchPuzzle puzzle = new WordSearchPuzzle();
+		puzzle.loadWords(dictionaryIndex, useAutomaton);
+		return puzzle;
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() is looked up by name,
+	 * so the class still compiles and runs on JVMs without it.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch(ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+
+	/**
+	 * Submits a grid, blocking while the maximum number of grids is
+	 * already in flight. The grid must not be changed until it is solved.
+	 * @param grid The grid, one array per row.
+	 * @return Completes with the words found, in no particular order.
+	 */
+	public CompletableFuture<List<WordSearchPuzzle.Word>> submit(char[][] grid) throws InterruptedException {
+		inFlight.acquire();
+		return solve(grid);
+	}
+
+	/**
+	 * Submits a grid if fewer than the maximum number are in flight.
+	 * @return The pending result, or null if the grid was not accepted.
+	 */
+	public CompletableFuture<List<WordSearchPuzzle.Word>> trySubmit(char[][] grid) {
+		if(!inFlight.tryAcquire()) {
+			return null;
+		}
+		return solve(grid);
+	}
+
+	/**
+	 * @param rows The rows of the grid, all of the same length.
+	 */
+	public CompletableFuture<List<WordSearchPuzzle.Word>> submit(List<String> rows) throws InterruptedException {
+		char[][] grid = new char[rows.size()][];
+		for(int i = 0; i < grid.length; i++) {
+			grid[i] = rows.get(i).toCharArray();
+		}
+		return submit(grid);
+	}
+
+	private CompletableFuture<List<WordSearchPuzzle.Word>> solve(char[][] grid) {
+		SolveTask task = new SolveTask(shared.withGrid(grid));
+		try {
+			executor.execute(task);
+		} catch(RejectedExecutionException e) {
+			task.fail(e);
+		}
+		return task.result;
+	}
+
+	/**
+	 * Solves one grid and releases its slot, whether it completes, fails
+	 * or is dropped by close() before it starts.
+	 */
+	private class SolveTask implements Runnable {
+
+		final WordSearchPuzzle puzzle;
+		final CompletableFuture<List<WordSearchPuzzle.Word>> result = new CompletableFuture<>();
+
+		SolveTask(WordSearchPuzzle puzzle) {
+			this.puzzle = puzzle;
+		}
+
+		@Override
+		public void run() {
+			try {
+				result.complete(puzzle.solve(useAutomaton, false));
+			} catch(Throwable t) {
+				result.completeExceptionally(t);
+			} finally {
+				inFlight.release();
+			}
+		}
+
+		void fail(Throwable t) {
+			inFlight.release();
+			result.completeExceptionally(t);
+		}
+
+	}
+
+	/**
+	 * @return The number of grids that can be submitted without blocking.
+	 */
+	public int availableSlots() {
+		return inFlight.availablePermits();
+	}
+
+	/**
+	 * Stops accepting grids and waits for those in flight to be solved.
+	 * If the waiting thread is interrupted, the grids not yet started are
+	 * dropped, their results completed with a CancellationException, and
+	 * the interrupt is left set.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(InterruptedException e) {
+			for(Runnable dropped : executor.shutdownNow()) {
+				if(dropped instanceof SolveTask) {
+					((SolveTask) dropped).fail(new CancellationException("The solver was closed."));
+				}
+			}
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.*;
+
+public class WordSearchSolverTest {
+
+	private static final List<String> WORDS = Arrays.asList("bird", "bride", "done", "door", "note", "rose", "side",
+			"snore", "stone", "tone", "tree", "seed", "dose", "node", "rest", "nest", "star", "rats", "tire", "rite");
+
+	private WordSearchPuzzle loaded = new WordSearchPuzzle();
+
+	@Before
+	public void load() {
+		loaded.loadWords(WORDS);
+	}
+
+	private static char[][] randomGrid(Random random, int rows, int columns) {
+		String letters = "ABDEINORST";
+		char[][] grid = new char[rows][columns];
+		for (char[] row : grid) {
+			for (int column = 0; column < columns; column++) {
+				row[column] = letters.charAt(random.nextInt(letters.length()));
+			}
+		}
+		return grid;
+	}
+
+	private static List<String> sorted(List<WordSearchPuzzle.Word> words) {
+		return words.stream().map(WordSearchPuzzle.Word::toString).sorted().collect(Collectors.toList());
+	}
+
+	@Test
+	public void testConcurrentSubmitsMatchFindWords() throws Exception {
+		Random random = new Random(9);
+		for (boolean useAutomaton : new boolean[] { false, true }) {
+			List<char[][]> grids = new ArrayList<>();
+			List<CompletableFuture<List<WordSearchPuzzle.Word>>> results = new ArrayList<>();
+			try (WordSearchSolver solver = new WordSearchSolver(loaded, useAutomaton, 4)) {
+				for (int i = 0; i < 20; i++) {
+					char[][] grid = randomGrid(random, 10 + i, 30 - i);
+					grids.add(grid);
+					results.add(solver.submit(grid));
+				}
+			}
+			for (int i = 0; i < grids.size(); i++) {
+				assertTrue(results.get(i).isDone());
+				assertEquals(sorted(loaded.withGrid(grids.get(i)).solve(false, false)), sorted(results.get(i).get()));
+			}
+		}
+	}
+
+	@Test
+	public void testSubmitBlocksAtLimit() throws Exception {
+		// En tråd som hålls upptagen, så att inlämnade rutnät blir liggande i kön.
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		ExecutorService submitter = Executors.newSingleThreadExecutor();
+		try (WordSearchSolver solver = new WordSearchSolver(loaded, false, 2, executor)) {
+			char[][] grid = randomGrid(new Random(1), 8, 8);
+			CompletableFuture<List<WordSearchPuzzle.Word>> first = solver.submit(grid);
+			CompletableFuture<List<WordSearchPuzzle.Word>> second = solver.trySubmit(grid);
+			assertNotNull(second);
+			assertEquals(0, solver.availableSlots());
+			assertNull(solver.trySubmit(grid));
+
+			Future<CompletableFuture<List<WordSearchPuzzle.Word>>> third = submitter.submit(() -> solver.submit(grid));
+			Thread.sleep(200);
+			assertFalse(third.isDone());
+			assertFalse(first.isDone());
+
+			release.countDown();
+			List<String> expected = sorted(loaded.withGrid(grid).solve(false, false));
+			assertEquals(expected, sorted(third.get(10, TimeUnit.SECONDS).get()));
+			assertEquals(expected, sorted(first.get()));
+			assertEquals(expected, sorted(second.get()));
+		} finally {
+			submitter.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testCloseWhenInterrupted() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		WordSearchSolver solver = new WordSearchSolver(loaded, false, 2, executor);
+		CompletableFuture<List<WordSearchPuzzle.Word>> queued = solver.submit(randomGrid(new Random(2), 8, 8));
+		Thread.currentThread().interrupt();
+		solver.close();
+		assertTrue(Thread.interrupted());
+		assertTrue(queued.isCompletedExceptionally());
+		assertEquals(2, solver.availableSlots());
+		assertTrue(solver.trySubmit(new char[0][]).isCompletedExceptionally());
+		assertEquals(2, solver.availableSlots());
+	}
+
+}
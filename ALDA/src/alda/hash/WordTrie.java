@@ -0,0 +1,137 @@
+package alda.hash;
+
+import java.util.Arrays;
+
+/**
+ * Character trie over a word list, stored in flat arrays: one slot per
+ * node for its character, its first child and its next sibling. Nodes
+ * are addressed by int, so a caller can walk the trie one character at
+ * a time and stop as soon as step() reports that no word continues with
+ * the characters seen so far.
+ *
+ * A reversed trie stores every word back to front. The grid scanners use
+ * one to recognise words that read towards the starting cell.
+ */
+public class WordTrie implements WordDictionary {
+
+	/**
+	 * Returned by step() when no word continues with the given character.
+	 */
+	public static final int NONE = -1;
+
+	private static final int ROOT = 0;
+	private static final int INITIAL_NODES = 1024;
+
+	private final boolean reversed;
+	private char[] labels = new char[INITIAL_NODES];
+	private int[] firstChild = new int[INITIAL_NODES];	// 0: no children, the root is never a child
+	private int[] nextSibling = new int[INITIAL_NODES];
+	private boolean[] terminal = new boolean[INITIAL_NODES];
+	private int nodeCount = 1;
+	private int size = 0;
+
+	/**
+	 * @param reversed If true, words are stored last character first.
+	 */
+	public WordTrie(boolean reversed) {
+		this.reversed = reversed;
+	}
+
+	/**
+	 * Builds a trie holding every word of the given collection.
+	 */
+	public static WordTrie of(Iterable<? extends CharSequence> words, boolean reversed) {
+		WordTrie trie = new WordTrie(reversed);
+		for(CharSequence word : words) {
+			trie.add(word);
+		}
+		trie.trimToSize();
+		return trie;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int root() {
+		return ROOT;
+	}
+
+	/**
+	 * @return The child of node reached by c, or NONE.
+	 */
+	public int step(int node, char c) {
+		for(int child = firstChild[node]; child != ROOT; child = nextSibling[child]) {
+			if(labels[child] == c) {
+				return child;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * @return true if the path to node spells a whole word.
+	 */
+	public boolean isWord(int node) {
+		return terminal[node];
+	}
+
+	public void add(CharSequence word) {
+		int node = ROOT;
+		for(int i = 0; i < word.length(); i++) {
+			char c = word.charAt(reversed ? word.length() - 1 - i : i);
+			int child = step(node, c);
+			if(child == NONE) {
+				child = newNode(c);
+				nextSibling[child] = firstChild[node];
+				firstChild[node] = child;
+			}
+			node = child;
+		}
+		if(!terminal[node]) {
+			terminal[node] = true;
+			size++;
+		}
+	}
+
+	@Override
+	public boolean contains(CharSequence word) {
+		int node = ROOT;
+		for(int i = 0; i < word.length() && node != NONE; i++) {
+			node = step(node, word.charAt(reversed ? word.length() - 1 - i : i));
+		}
+		return node != NONE && terminal[node];
+	}
+
+	@Override
+	public boolean contains(int hash, char[] chars, int offset, int length) {
+		int node = ROOT;
+		for(int i = 0; i < length && node != NONE; i++) {
+			node = step(node, chars[reversed ? offset + length - 1 - i : offset + i]);
+		}
+		return node != NONE && terminal[node];
+	}
+
+	private int newNode(char c) {
+		if(nodeCount == labels.length) {
+			resize(labels.length * 2);
+		}
+		labels[nodeCount] = c;
+		return nodeCount++;
+	}
+
+	/**
+	 * Shrinks the node arrays to the number of nodes in use.
+	 */
+	public void trimToSize() {
+		resize(nodeCount);
+	}
+
+	private void resize(int capacity) {
+		labels = Arrays.copyOf(labels, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		nextSibling = Arrays.copyOf(nextSibling, capacity);
+		terminal = Arrays.copyOf(terminal, capacity);
+	}
+
+}
@@ -0,0 +1,83 @@
+package alda.hash;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.*;
+
+public class WordTrieTest {
+
+	private WordTrie forward = WordTrie.of(Arrays.asList("tote", "totem", "to", "order", "border", "tote"), false);
+	private WordTrie backward = WordTrie.of(Arrays.asList("tote", "totem", "to", "order", "border", "tote"), true);
+
+	/**
+	 * Steps from the root through the characters of the string.
+	 * @return The node reached, or NONE.
+	 */
+	private int walk(WordTrie trie, String characters) {
+		int node = trie.root();
+		for (int i = 0; i < characters.length() && node != WordTrie.NONE; i++) {
+			node = trie.step(node, characters.charAt(i));
+		}
+		return node;
+	}
+
+	@Test
+	public void testForwardWalk() {
+		assertEquals(5, forward.size());
+		int node = walk(forward, "tot");
+		assertNotEquals(WordTrie.NONE, node);
+		assertFalse(forward.isWord(node));
+		node = forward.step(node, 'e');
+		assertTrue(forward.isWord(node));
+		assertTrue(forward.isWord(walk(forward, "totem")));
+		assertTrue(forward.isWord(walk(forward, "border")));
+	}
+
+	@Test
+	public void testReversedWalk() {
+		assertEquals(5, backward.size());
+		assertTrue(backward.isWord(walk(backward, "etot")));
+		assertTrue(backward.isWord(walk(backward, "metot")));
+		assertTrue(backward.isWord(walk(backward, "redro")));
+		assertTrue(backward.isWord(walk(backward, "redrob")));
+		assertEquals(WordTrie.NONE, walk(backward, "tote"));
+		assertTrue(backward.contains("totem"));
+		assertTrue(backward.contains("totem".hashCode(), "a totem".toCharArray(), 2, 5));
+	}
+
+	@Test
+	public void testPrefixDies() {
+		assertEquals(WordTrie.NONE, walk(forward, "tx"));
+		assertEquals(WordTrie.NONE, walk(forward, "totems"));
+		assertEquals(WordTrie.NONE, forward.step(forward.root(), 'z'));
+		assertFalse(forward.contains("orderly"));
+		assertFalse(forward.contains("tot"));
+	}
+
+	@Test
+	public void testWordsThatArePrefixesOfOtherWords() {
+		int to = walk(forward, "to");
+		assertTrue(forward.isWord(to));
+		int tote = walk(forward, "tote");
+		assertTrue(forward.isWord(tote));
+		int totem = forward.step(tote, 'm');
+		assertTrue(forward.isWord(totem));
+		assertTrue(forward.contains("to"));
+		assertTrue(forward.contains("tote"));
+		assertTrue(forward.contains("totem"));
+		// Baklänges är "order" ett prefix till "border".
+		assertTrue(backward.contains("order"));
+		assertTrue(backward.isWord(walk(backward, "redro")));
+	}
+
+	@Test
+	public void testAddAfterTrim() {
+		forward.add("totems");
+		assertEquals(6, forward.size());
+		assertTrue(forward.isWord(walk(forward, "totems")));
+		assertTrue(forward.isWord(walk(forward, "totem")));
+	}
+
+}